@@ -1,88 +1,57 @@
 package com.mycompany.labopr.data;
 
 import com.mycompany.labopr.data.TransactionData;
+import java.text.SimpleDateFormat;
 import java.util.*;
 
 public class AnalyticsData {
+    private static final int TOP_CATEGORY_COUNT = 3;
     
-    // Get total income for a specific month
-    public static double getTotalIncome(String month) {
-        List<TransactionData.Transaction> incomeTransactions = 
-            TransactionData.getTransactionsByType("Income");
-        
-        double total = 0.0;
-        for (TransactionData.Transaction t : incomeTransactions) {
-            String transactionMonth = t.date.length() >= 7 ? t.date.substring(0, 7) : "";
-            if (transactionMonth.equals(month)) {
-                total += t.amount;
-            }
-        }
-        return total;
+    // Get total income (in centavos) for a specific month
+    public static long getTotalIncome(String month) {
+        return TransactionData.getMonthlyTotal("Income", month);
     }
     
-    // Get total expenses for a specific month
-    public static double getTotalExpenses(String month) {
-        List<TransactionData.Transaction> expenseTransactions = 
-            TransactionData.getTransactionsByType("Expenses");
-        
-        double total = 0.0;
-        for (TransactionData.Transaction t : expenseTransactions) {
-            String transactionMonth = t.date.length() >= 7 ? t.date.substring(0, 7) : "";
-            if (transactionMonth.equals(month)) {
-                total += t.amount;
-            }
-        }
-        return total;
+    // Get total expenses (in centavos) for a specific month
+    public static long getTotalExpenses(String month) {
+        return TransactionData.getMonthlyTotal("Expenses", month);
     }
     
-    // Calculate net savings
-    public static double getNetSavings(String month) {
+    // Calculate net savings (in centavos)
+    public static long getNetSavings(String month) {
         return getTotalIncome(month) - getTotalExpenses(month);
     }
     
     // Calculate savings rate as percentage
     public static double getSavingsRate(String month) {
-        double income = getTotalIncome(month);
+        long income = getTotalIncome(month);
         if (income == 0) return 0.0;
         
-        double savings = getNetSavings(month);
-        return (savings / income) * 100;
+        long savings = getNetSavings(month);
+        return (savings * 100.0) / income;
     }
     
-    // Get spending by category for a month
-    public static Map<String, Double> getSpendingByCategory(String month) {
-        List<TransactionData.Transaction> expenseTransactions = 
-            TransactionData.getTransactionsByType("Expenses");
-        
-        Map<String, Double> categorySpending = new HashMap<>();
-        
-        for (TransactionData.Transaction t : expenseTransactions) {
-            String transactionMonth = t.date.length() >= 7 ? t.date.substring(0, 7) : "";
-            if (transactionMonth.equals(month)) {
-                categorySpending.put(
-                    t.category, 
-                    categorySpending.getOrDefault(t.category, 0.0) + t.amount
-                );
-            }
-        }
-        
-        return categorySpending;
+    // Get spending by category (in centavos) for a month
+    public static Map<String, Long> getSpendingByCategory(String month) {
+        return TransactionData.getMonthlyTotalsByCategory("Expenses", month);
     }
     
     // Get top N expense categories
     public static List<CategorySpending> getTopExpenseCategories(String month, int topN) {
-        Map<String, Double> spending = getSpendingByCategory(month);
-        
+        return topCategories(getSpendingByCategory(month), topN);
+    }
+    
+    private static List<CategorySpending> topCategories(Map<String, Long> spending, int topN) {
         List<CategorySpending> categories = new ArrayList<>();
-        for (Map.Entry<String, Double> entry : spending.entrySet()) {
+        for (Map.Entry<String, Long> entry : spending.entrySet()) {
             categories.add(new CategorySpending(entry.getKey(), entry.getValue()));
         }
         
         // Sort by amount descending
-        categories.sort((a, b) -> Double.compare(b.amount, a.amount));
+        categories.sort((a, b) -> Long.compare(b.amount, a.amount));
         
         // Return top N
-        return categories.subList(0, Math.min(topN, categories.size()));
+        return new ArrayList<>(categories.subList(0, Math.min(topN, categories.size())));
     }
     
     // Get income vs expenses trend for multiple months
@@ -90,31 +59,114 @@ public class AnalyticsData {
         Map<String, MonthlyData> trend = new LinkedHashMap<>();
         
         for (String month : months) {
-            double income = getTotalIncome(month);
-            double expenses = getTotalExpenses(month);
+            long income = getTotalIncome(month);
+            long expenses = getTotalExpenses(month);
             trend.put(month, new MonthlyData(income, expenses));
         }
         
         return trend;
     }
     
-    // Helper class for category spending
+    // Get the months ending at (and including) the given month, oldest first
+    public static List<String> getTrendMonths(String month, int count) {
+        Calendar cal = Calendar.getInstance();
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM");
+        List<String> months = new ArrayList<>();
+        
+        try {
+            cal.setTime(sdf.parse(month));
+        } catch (Exception e) {
+            cal = Calendar.getInstance();
+        }
+        
+        cal.add(Calendar.MONTH, -(count - 1));
+        for (int i = 0; i < count; i++) {
+            months.add(sdf.format(cal.getTime()));
+            cal.add(Calendar.MONTH, 1);
+        }
+        
+        return months;
+    }
+    
+    // Total (in centavos) of one type between two YYYY-MM-DD dates, both included.
+    // A null or empty category means every category; invalid dates give 0.
+    public static long totals(String type, String category, String fromDate, String toDate) {
+        if (fromDate == null || toDate == null) return 0;
+        int from = TransactionColumns.parseDate(fromDate);
+        int to = TransactionColumns.parseDate(toDate);
+        if (from == TransactionColumns.NO_DATE || to == TransactionColumns.NO_DATE) return 0;
+        
+        if (category != null && category.isEmpty()) category = null;
+        return TransactionRepository.rangeTotal(type, category, from, to);
+    }
+    
+    // Compute everything the analytics view needs for a month in one read
+    public static Snapshot snapshot(String month, int trendWindow) {
+        List<String> trendMonths = getTrendMonths(month, trendWindow);
+        
+        int monthCode = TransactionColumns.monthCode(month);
+        
+        return TransactionRepository.readRollup(rollup -> {
+            long income = rollup.total(TransactionColumns.INCOME, monthCode);
+            long expenses = rollup.total(TransactionColumns.EXPENSES, monthCode);
+            Map<String, Long> spending = rollup.byCategory(TransactionColumns.EXPENSES, monthCode);
+            
+            Map<String, MonthlyData> trend = new LinkedHashMap<>();
+            for (String m : trendMonths) {
+                int code = TransactionColumns.monthCode(m);
+                trend.put(m, new MonthlyData(
+                    rollup.total(TransactionColumns.INCOME, code),
+                    rollup.total(TransactionColumns.EXPENSES, code)
+                ));
+            }
+            
+            return new Snapshot(month, income, expenses, spending, trend,
+                topCategories(spending, TOP_CATEGORY_COUNT));
+        });
+    }
+    
+    // Immutable result of snapshot(); its maps, list and the values in them can't be changed
+    public static class Snapshot {
+        public final String month;
+        public final long totalIncome;
+        public final long totalExpenses;
+        public final long netSavings;
+        public final double savingsRate;
+        public final Map<String, Long> spendingByCategory;
+        public final Map<String, MonthlyData> trend;
+        public final List<CategorySpending> topCategories;
+        
+        private Snapshot(String month, long totalIncome, long totalExpenses,
+                         Map<String, Long> spendingByCategory, Map<String, MonthlyData> trend,
+                         List<CategorySpending> topCategories) {
+            this.month = month;
+            this.totalIncome = totalIncome;
+            this.totalExpenses = totalExpenses;
+            this.netSavings = totalIncome - totalExpenses;
+            this.savingsRate = totalIncome == 0 ? 0.0 : (netSavings * 100.0) / totalIncome;
+            this.spendingByCategory = Collections.unmodifiableMap(spendingByCategory);
+            this.trend = Collections.unmodifiableMap(trend);
+            this.topCategories = Collections.unmodifiableList(topCategories);
+        }
+    }
+    
+    // Helper class for category spending (immutable)
     public static class CategorySpending {
-        public String category;
-        public double amount;
+        public final String category;
+        public final long amount; // centavos
         
-        public CategorySpending(String category, double amount) {
+        public CategorySpending(String category, long amount) {
             this.category = category;
             this.amount = amount;
         }
     }
     
-    // Helper class for monthly data
+    // Helper class for monthly data (immutable)
     public static class MonthlyData {
-        public double income;
-        public double expenses;
+        public final long income; // centavos
+        public final long expenses; // centavos
         
-        public MonthlyData(double income, double expenses) {
+        public MonthlyData(long income, long expenses) {
             this.income = income;
             this.expenses = expenses;
         }
@@ -0,0 +1,284 @@
+package com.mycompany.labopr.data;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Append-only binary transaction log made of three files:
+//   transactions.bin  - 16 byte header, then one fixed 32 byte record per row
+//   transactions.heap - UTF-8 comment bytes the records point into
+//   transactions.cat  - category names, one per line; a record stores the line number
+// Records are read through a read-only memory mapping and comments stay in the
+// heap until a row is actually turned into a Transaction. A record cut short by
+// a crash is ignored on load and overwritten by the next append.
+class BinaryTransactionLog implements TransactionStorage {
+    static final String RECORDS_FILE = "transactions.bin";
+    static final String HEAP_FILE = "transactions.heap";
+    static final String CATEGORIES_FILE = "transactions.cat";
+
+    private static final int MAGIC = 0x4B575458; // "KWTX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 32;
+
+    // Comment references pack the heap offset above a 24 bit length
+    private static final int LENGTH_BITS = 24;
+    private static final int MAX_LAZY_LENGTH = (1 << LENGTH_BITS) - 1;
+
+    // Separates the original date text from the comment for rows with NO_DATE
+    private static final char RAW_DATE_SEPARATOR = '\0';
+
+    // Category names by file id, and file ids by dictionary id (-1 = not in the file yet)
+    private final List<String> fileCategories = new ArrayList<>();
+    private int[] fileIds = new int[0];
+
+    private MappedByteBuffer heap;
+
+    @Override
+    public void load(TransactionColumns into) throws IOException {
+        loadCategories();
+
+        Path records = Paths.get(RECORDS_FILE);
+        if (!Files.exists(records)) return;
+
+        try (FileChannel channel = FileChannel.open(records, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) return;
+
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+                throw new IOException(RECORDS_FILE + " is not a transaction log");
+            }
+
+            int[] dictionaryIds = new int[fileCategories.size()];
+            for (int i = 0; i < dictionaryIds.length; i++) {
+                dictionaryIds[i] = CategoryDictionary.intern(fileCategories.get(i));
+            }
+
+            long count = (size - HEADER_SIZE) / RECORD_SIZE;
+            for (long i = 0; i < count; i++) {
+                int pos = (int) (HEADER_SIZE + i * RECORD_SIZE);
+                byte type = map.get(pos);
+                int date = map.getInt(pos + 4);
+                int fileCategory = map.getInt(pos + 8);
+                int commentLength = map.getInt(pos + 12);
+                long amount = map.getLong(pos + 16);
+                long commentOffset = map.getLong(pos + 24);
+
+                if (type != TransactionColumns.EXPENSES && type != TransactionColumns.INCOME) continue;
+                if (fileCategory < 0 || fileCategory >= dictionaryIds.length) continue;
+                int category = dictionaryIds[fileCategory];
+
+                if (date == TransactionColumns.NO_DATE) {
+                    // the original date text shares the heap entry with the comment
+                    String entry = readHeap(commentOffset, commentLength);
+                    int split = entry.indexOf(RAW_DATE_SEPARATOR);
+                    if (split < 0) {
+                        // entry lost, e.g. the heap was cut short by a crash
+                        int row = into.add(type, date, category, amount, "");
+                        into.setRawDate(row, "");
+                        continue;
+                    }
+                    int row = into.add(type, date, category, amount, entry.substring(split + 1));
+                    into.setRawDate(row, entry.substring(0, split));
+                } else if (commentLength == 0) {
+                    into.add(type, date, category, amount, "");
+                } else if (commentLength <= MAX_LAZY_LENGTH) {
+                    into.addWithCommentRef(type, date, category, amount,
+                            (commentOffset << LENGTH_BITS) | commentLength);
+                } else {
+                    into.add(type, date, category, amount, readHeap(commentOffset, commentLength));
+                }
+            }
+        }
+        into.setCommentSource(ref -> readHeap(ref >>> LENGTH_BITS, (int) (ref & MAX_LAZY_LENGTH)));
+    }
+
+    @Override
+    public void append(List<TransactionData.Transaction> transactions) throws IOException {
+        ByteArrayOutputStream heapEntries = new ByteArrayOutputStream();
+        ByteBuffer records = ByteBuffer.allocate(transactions.size() * RECORD_SIZE);
+
+        // heap first, so a record never points past the end of the heap
+        try (FileChannel channel = FileChannel.open(Paths.get(HEAP_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long heapEnd = channel.size();
+            long offset = heapEnd;
+            for (TransactionData.Transaction t : transactions) {
+                byte type = TransactionColumns.typeCode(t.type);
+                if (type < 0) continue; // the log only holds Expenses and Income
+
+                int date = TransactionColumns.parseDate(t.date);
+                String heapEntry = date == TransactionColumns.NO_DATE
+                        ? t.date + RAW_DATE_SEPARATOR + t.comment
+                        : t.comment;
+                byte[] bytes = heapEntry.getBytes(StandardCharsets.UTF_8);
+                heapEntries.write(bytes);
+
+                records.put(record(type, date, fileCategory(t.category), t.amountCents, offset, bytes.length));
+                offset += bytes.length;
+            }
+            writeFully(channel, ByteBuffer.wrap(heapEntries.toByteArray()), heapEnd);
+            DurableFiles.appended(channel, HEAP_FILE);
+        }
+
+        records.flip();
+        if (!records.hasRemaining()) return;
+        try (FileChannel channel = FileChannel.open(Paths.get(RECORDS_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                writeFully(channel, header(), 0);
+                size = HEADER_SIZE;
+            }
+            // drop a partially written record left behind by a crash
+            long position = HEADER_SIZE + (size - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+            writeFully(channel, records, position);
+            DurableFiles.appended(channel, RECORDS_FILE);
+        }
+    }
+
+    // Each file is written to a temporary copy and forced to disk before any
+    // of them is renamed into place: heap and categories first, then the
+    // records that point into them. The caller switches the backend setting
+    // only after this returns, so a crash part way leaves the old backend in
+    // charge and these files unused.
+    @Override
+    public void rewrite(TransactionColumns from) throws IOException {
+        fileCategories.clear();
+        fileIds = new int[0];
+        heap = null;
+
+        int[] lengths = new int[from.size()];
+        Path heapTemp = DurableFiles.writeTempBytes(HEAP_FILE, out -> {
+            for (int row = 0; row < from.size(); row++) {
+                String heapEntry = from.date(row) == TransactionColumns.NO_DATE
+                        ? from.dateString(row) + RAW_DATE_SEPARATOR + from.comment(row)
+                        : from.comment(row);
+                byte[] bytes = heapEntry.getBytes(StandardCharsets.UTF_8);
+                out.write(bytes);
+                lengths[row] = bytes.length;
+            }
+        });
+
+        Path recordsTemp = DurableFiles.writeTempBytes(RECORDS_FILE, out -> {
+            out.write(header().array());
+            long offset = 0;
+            for (int row = 0; row < from.size(); row++) {
+                String name = CategoryDictionary.nameOf(from.category(row));
+                int id = CategoryDictionary.intern(name);
+                int fileCategory = id < fileIds.length ? fileIds[id] : -1;
+                if (fileCategory < 0) {
+                    // numbered here, written to transactions.cat below
+                    fileCategory = fileCategories.size();
+                    fileCategories.add(name);
+                    remember(name, fileCategory);
+                }
+                out.write(record(from.type(row), from.date(row), fileCategory, from.amount(row),
+                        offset, lengths[row]).array());
+                offset += lengths[row];
+            }
+        });
+
+        Path categoriesTemp = DurableFiles.writeTemp(CATEGORIES_FILE, StandardCharsets.UTF_8, bw -> {
+            for (String name : fileCategories) {
+                bw.write(name);
+                bw.newLine();
+            }
+        });
+
+        DurableFiles.install(heapTemp, HEAP_FILE);
+        DurableFiles.install(categoriesTemp, CATEGORIES_FILE);
+        DurableFiles.install(recordsTemp, RECORDS_FILE);
+    }
+
+    // Category names already in transactions.cat
+    private void loadCategories() throws IOException {
+        fileCategories.clear();
+        fileIds = new int[0];
+
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(
+                new FileInputStream(CATEGORIES_FILE), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                remember(line, fileCategories.size());
+                fileCategories.add(line);
+            }
+        } catch (FileNotFoundException ignored) {
+            // nothing has been written yet
+        }
+    }
+
+    // File id of a category, adding it to transactions.cat if it's new
+    private int fileCategory(String name) throws IOException {
+        int id = CategoryDictionary.intern(name);
+        if (id < fileIds.length && fileIds[id] >= 0) {
+            return fileIds[id];
+        }
+
+        DurableFiles.append(CATEGORIES_FILE, StandardCharsets.UTF_8, bw -> {
+            bw.write(name);
+            bw.newLine();
+        });
+        int fileId = fileCategories.size();
+        fileCategories.add(name);
+        remember(name, fileId);
+        return fileId;
+    }
+
+    private void remember(String name, int fileId) {
+        int id = CategoryDictionary.intern(name);
+        if (id >= fileIds.length) {
+            int old = fileIds.length;
+            fileIds = Arrays.copyOf(fileIds, Math.max(id + 1, CategoryDictionary.size()));
+            Arrays.fill(fileIds, old, fileIds.length, -1);
+        }
+        fileIds[id] = fileId;
+    }
+
+    // Decode a heap entry, re-mapping the heap if it has grown past the current mapping
+    private String readHeap(long offset, int length) {
+        if (length == 0) return "";
+        try {
+            if (heap == null || offset + length > heap.capacity()) {
+                try (FileChannel channel = FileChannel.open(Paths.get(HEAP_FILE), StandardOpenOption.READ)) {
+                    heap = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            }
+            byte[] bytes = new byte[length];
+            heap.get((int) offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } catch (IOException | IndexOutOfBoundsException e) {
+            e.printStackTrace();
+            return "";
+        }
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(0);
+        header.flip();
+        return header;
+    }
+
+    private static ByteBuffer record(byte type, int date, int category, long amount, long commentOffset, int commentLength) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        record.put(type).put((byte) 0).putShort((short) 0);
+        record.putInt(date).putInt(category).putInt(commentLength);
+        record.putLong(amount).putLong(commentOffset);
+        record.flip();
+        return record;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
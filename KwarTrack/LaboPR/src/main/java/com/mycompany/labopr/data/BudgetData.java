@@ -1,137 +1,79 @@
 package com.mycompany.labopr.data;
 
 import com.mycompany.labopr.data.TransactionData;
-import java.io.*;
+import com.mycompany.labopr.utils.DataChangeEvent;
+import com.mycompany.labopr.utils.DataEvents;
+import com.mycompany.labopr.utils.Money;
 import java.util.*;
 
 public class BudgetData {
-    private static final String BUDGETS_FILE = "budgets.txt";
-    
     // Budget goal class
     public static class BudgetGoal {
         public String category;
         public String month; // Format: YYYY-MM
-        public double goal;
+        public long goalCents; // centavos
         
-        public BudgetGoal(String category, String month, double goal) {
+        public BudgetGoal(String category, String month, long goalCents) {
             this.category = category;
             this.month = month;
-            this.goal = goal;
+            this.goalCents = goalCents;
         }
         
         public String toFileString() {
-            return category + "|" + month + "|" + goal;
+            return category + "|" + month + "|" + Money.toPlainString(goalCents);
         }
         
         public static BudgetGoal fromFileString(String line) {
-            String[] parts = line.split("\\|", 3);
-            if (parts.length == 3) {
-                try {
-                    return new BudgetGoal(parts[0], parts[1], Double.parseDouble(parts[2]));
-                } catch (NumberFormatException e) {
-                    return null;
-                }
+            // category|month|goal, the goal being the rest of the line
+            int categoryEnd = line.indexOf('|');
+            int monthEnd = categoryEnd < 0 ? -1 : line.indexOf('|', categoryEnd + 1);
+            if (monthEnd < 0) return null;
+            
+            try {
+                return new BudgetGoal(
+                    line.substring(0, categoryEnd),
+                    line.substring(categoryEnd + 1, monthEnd),
+                    Money.parse(line, monthEnd + 1, line.length())
+                );
+            } catch (NumberFormatException e) {
+                return null;
             }
-            return null;
         }
     }
     
     // Save a budget goal
     public static void saveBudgetGoal(BudgetGoal goal) {
-        List<BudgetGoal> goals = getAllBudgetGoals();
-        
-        // Remove existing goal for same category and month
-        goals.removeIf(g -> g.category.equals(goal.category) && g.month.equals(goal.month));
-        
-        // Add new goal
-        goals.add(goal);
-        
-        // Write all goals back to file
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(BUDGETS_FILE))) {
-            for (BudgetGoal g : goals) {
-                bw.write(g.toFileString());
-                bw.newLine();
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        saveBudgetGoals(Collections.singletonList(goal));
     }
     
-    // Save multiple budget goals at once
+    // Save multiple budget goals at once; new goals replace existing ones
     public static void saveBudgetGoals(List<BudgetGoal> newGoals) {
         if (newGoals.isEmpty()) return;
+        if (!BudgetStore.upsertAll(newGoals)) return;
         
-        List<BudgetGoal> allGoals = getAllBudgetGoals();
-        
-        // Remove existing goals for same categories and months
-        for (BudgetGoal newGoal : newGoals) {
-            allGoals.removeIf(g -> g.category.equals(newGoal.category) && g.month.equals(newGoal.month));
-        }
-        
-        // Add new goals
-        allGoals.addAll(newGoals);
-        
-        // Write all goals back to file
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(BUDGETS_FILE))) {
-            for (BudgetGoal g : allGoals) {
-                bw.write(g.toFileString());
-                bw.newLine();
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        for (BudgetGoal g : newGoals) {
+            DataEvents.publish(new DataChangeEvent.BudgetUpserted(g.month, g.category, g.goalCents));
         }
     }
     
     // Get all budget goals
     public static List<BudgetGoal> getAllBudgetGoals() {
-        List<BudgetGoal> goals = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(BUDGETS_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                BudgetGoal goal = BudgetGoal.fromFileString(line);
-                if (goal != null) goals.add(goal);
-            }
-        } catch (IOException ignored) {
-        }
-        return goals;
+        return BudgetStore.getAll();
     }
     
-    // Get budget goals for a specific month
-    public static Map<String, Double> getBudgetGoalsForMonth(String month) {
-        Map<String, Double> goals = new HashMap<>();
-        for (BudgetGoal goal : getAllBudgetGoals()) {
-            if (goal.month.equals(month)) {
-                goals.put(goal.category, goal.goal);
-            }
-        }
-        return goals;
+    // Get budget goals (in centavos) for a specific month
+    public static Map<String, Long> getBudgetGoalsForMonth(String month) {
+        return BudgetStore.forMonth(month);
     }
     
-    // Get budget goal for a specific category and month
-    public static Double getBudgetGoal(String category, String month) {
-        for (BudgetGoal goal : getAllBudgetGoals()) {
-            if (goal.category.equals(category) && goal.month.equals(month)) {
-                return goal.goal;
-            }
-        }
-        return null;
+    // Get budget goal (in centavos) for a specific category and month
+    public static Long getBudgetGoal(String category, String month) {
+        return BudgetStore.get(category, month);
     }
     
-    // Calculate spending for a category in a specific month
-    public static double getSpentForCategoryAndMonth(String category, String month) {
-        List<TransactionData.Transaction> transactions = TransactionData.getTransactionsByType("Expenses");
-        double spent = 0.0;
-        
-        for (TransactionData.Transaction t : transactions) {
-            // Extract YYYY-MM from transaction date
-            String transactionMonth = t.date.length() >= 7 ? t.date.substring(0, 7) : "";
-            
-            if (t.category.equals(category) && transactionMonth.equals(month)) {
-                spent += t.amount;
-            }
-        }
-        
-        return spent;
+    // Calculate spending (in centavos) for a category in a specific month
+    public static long getSpentForCategoryAndMonth(String category, String month) {
+        return TransactionData.getMonthlyTotal("Expenses", month, category);
     }
     
     // Get all expense categories that have either goals or transactions for a month
@@ -139,24 +81,52 @@ public class BudgetData {
         Set<String> categories = new HashSet<>();
         
         // Add categories with budget goals
-        for (BudgetGoal goal : getAllBudgetGoals()) {
-            if (goal.month.equals(month)) {
-                categories.add(goal.category);
-            }
-        }
+        categories.addAll(getBudgetGoalsForMonth(month).keySet());
         
         // Add categories with transactions in this month
-        List<TransactionData.Transaction> transactions = TransactionData.getTransactionsByType("Expenses");
-        for (TransactionData.Transaction t : transactions) {
-            String transactionMonth = t.date.length() >= 7 ? t.date.substring(0, 7) : "";
-            if (transactionMonth.equals(month)) {
-                categories.add(t.category);
-            }
-        }
+        categories.addAll(TransactionData.getCategoriesForMonth("Expenses", month));
         
         return categories;
     }
     
+    // Goal, spending and status of one category in a month
+    public static class CategoryReport {
+        public String category;
+        public long goalCents; // 0 when no goal is set
+        public long spentCents;
+        public long remainingCents;
+        public BudgetStatus status;
+        
+        public CategoryReport(String category, long goalCents, long spentCents) {
+            this.category = category;
+            this.goalCents = goalCents;
+            this.spentCents = spentCents;
+            this.remainingCents = goalCents - spentCents;
+            this.status = calculateStatus(goalCents, spentCents);
+        }
+    }
+    
+    // Report every relevant category of a month, sorted by name, from one goal
+    // lookup and one rollup lookup. With no goals or spending that month, every
+    // expense category is listed.
+    public static List<CategoryReport> monthReport(String month) {
+        Map<String, Long> goals = getBudgetGoalsForMonth(month);
+        Map<String, Long> spending = TransactionData.getMonthlyTotalsByCategory("Expenses", month);
+        
+        Set<String> categories = new TreeSet<>(goals.keySet());
+        categories.addAll(spending.keySet());
+        if (categories.isEmpty()) {
+            categories.addAll(TransactionData.getCategories("Expenses"));
+        }
+        
+        List<CategoryReport> report = new ArrayList<>(categories.size());
+        for (String category : categories) {
+            report.add(new CategoryReport(category,
+                goals.getOrDefault(category, 0L), spending.getOrDefault(category, 0L)));
+        }
+        return report;
+    }
+    
     // Budget status enum
     public enum BudgetStatus {
         UNDER_BUDGET,
@@ -165,14 +135,13 @@ public class BudgetData {
     }
     
     // Calculate budget status
-    public static BudgetStatus calculateStatus(double goal, double spent) {
+    public static BudgetStatus calculateStatus(long goal, long spent) {
         if (goal == 0) return BudgetStatus.UNDER_BUDGET;
         
-        double percentage = (spent / goal) * 100;
-        
-        if (percentage >= 100) {
+        // Compare spent/goal against 100% and 80% without leaving integers
+        if (spent >= goal) {
             return BudgetStatus.OVERSPENT;
-        } else if (percentage >= 80) {
+        } else if (spent * 5 >= goal * 4) {
             return BudgetStatus.NEARING_LIMIT;
         } else {
             return BudgetStatus.UNDER_BUDGET;
@@ -0,0 +1,171 @@
+package com.mycompany.labopr.data;
+
+import com.mycompany.labopr.utils.Money;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Process-wide in-memory copy of the budget goals, keyed by month and then
+// by category. budgets.txt is an upsert log: saving appends the new goals
+// instead of rewriting every goal ever set, and when a (category, month)
+// appears more than once the last line wins on load. Once superseded lines
+// outnumber the live goals the file is compacted in the background, by
+// replacing the log with just the live goals. The new file is written
+// outside the store lock so reads and saves aren't held up by it.
+class BudgetStore {
+    static final String BUDGETS_FILE = "budgets.txt";
+
+    // Never compact for fewer dead lines than this
+    private static final int COMPACT_MIN_DEAD = 1000;
+
+    private static final Map<String, Map<String, Long>> byMonth = new LinkedHashMap<>();
+    private static boolean loaded = false;
+
+    // Lines in the file, live or superseded, and how many goals are live
+    private static int fileLines = 0;
+    private static int liveGoals = 0;
+
+    // Bumped by every append and reset, so compaction can tell its copy is stale
+    private static long version = 0;
+
+    private static final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "budget-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static boolean compactionScheduled = false;
+
+    private BudgetStore() {
+    }
+
+    private static void ensureLoaded() {
+        if (loaded) return;
+
+        try (LineScanner line = new LineScanner(new FileReader(BUDGETS_FILE), 3)) {
+            while (line.next('|')) {
+                fileLines++;
+                if (line.fieldCount() != 3) continue;
+                try {
+                    long goalCents = Money.parse(line.chars(), line.start(2), line.end(2));
+                    put(line.field(0), line.field(1), goalCents);
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        } catch (IOException ignored) {
+            // file may not exist yet
+        }
+        loaded = true;
+        scheduleCompactionIfNeeded();
+    }
+
+    private static void put(String category, String month, long goalCents) {
+        Long previous = byMonth.computeIfAbsent(month, k -> new LinkedHashMap<>()).put(category, goalCents);
+        if (previous == null) liveGoals++;
+    }
+
+    // Append goals to the file and then to memory; false if they couldn't be written
+    static synchronized boolean upsertAll(List<BudgetData.BudgetGoal> goals) {
+        ensureLoaded();
+
+        try {
+            DurableFiles.append(BUDGETS_FILE, bw -> {
+                for (BudgetData.BudgetGoal g : goals) {
+                    bw.write(g.toFileString());
+                    bw.newLine();
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        fileLines += goals.size();
+        version++;
+        for (BudgetData.BudgetGoal g : goals) {
+            put(g.category, g.month, g.goalCents);
+        }
+        scheduleCompactionIfNeeded();
+        return true;
+    }
+
+    private static boolean needsCompaction() {
+        int dead = fileLines - liveGoals;
+        return dead >= COMPACT_MIN_DEAD && dead > liveGoals;
+    }
+
+    private static void scheduleCompactionIfNeeded() {
+        if (compactionScheduled || !needsCompaction()) return;
+        compactionScheduled = true;
+        compactor.execute(BudgetStore::compact);
+    }
+
+    // Rewrite the file with only the live goals. Runs on the compactor thread:
+    // the goals are copied under the store lock, written to a temporary file
+    // without it, and the lock is taken again for the rename. If a save or a
+    // reset happened in between, the copy is stale and is thrown away instead.
+    private static void compact() {
+        List<BudgetData.BudgetGoal> goals;
+        long copied;
+        synchronized (BudgetStore.class) {
+            compactionScheduled = false;
+            if (!loaded || !needsCompaction()) return; // reset or already compacted
+            goals = getAll();
+            copied = version;
+        }
+
+        try {
+            Path temp = DurableFiles.writeTemp(BUDGETS_FILE, bw -> {
+                for (BudgetData.BudgetGoal g : goals) {
+                    bw.write(g.toFileString());
+                    bw.newLine();
+                }
+            });
+
+            synchronized (BudgetStore.class) {
+                if (loaded && version == copied) {
+                    DurableFiles.install(temp, BUDGETS_FILE);
+                    fileLines = goals.size();
+                    return;
+                }
+                Files.deleteIfExists(temp);
+                if (loaded) scheduleCompactionIfNeeded(); // try again with the newer goals
+            }
+        } catch (IOException e) {
+            // the log is still complete, just longer than it needs to be
+            e.printStackTrace();
+        }
+    }
+
+    static synchronized Long get(String category, String month) {
+        ensureLoaded();
+        Map<String, Long> goals = byMonth.get(month);
+        return goals == null ? null : goals.get(category);
+    }
+
+    // Copy of one month's goals by category
+    static synchronized Map<String, Long> forMonth(String month) {
+        ensureLoaded();
+        Map<String, Long> goals = byMonth.get(month);
+        return goals == null ? new HashMap<>() : new HashMap<>(goals);
+    }
+
+    static synchronized List<BudgetData.BudgetGoal> getAll() {
+        ensureLoaded();
+        List<BudgetData.BudgetGoal> result = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Long>> month : byMonth.entrySet()) {
+            for (Map.Entry<String, Long> goal : month.getValue().entrySet()) {
+                result.add(new BudgetData.BudgetGoal(goal.getKey(), month.getKey(), goal.getValue()));
+            }
+        }
+        return result;
+    }
+
+    // Drop the cached copy so the next access re-reads the file
+    static synchronized void invalidate() {
+        byMonth.clear();
+        fileLines = 0;
+        liveGoals = 0;
+        loaded = false;
+        version++;
+    }
+}
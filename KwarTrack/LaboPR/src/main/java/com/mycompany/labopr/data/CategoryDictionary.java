@@ -0,0 +1,63 @@
+package com.mycompany.labopr.data;
+
+import java.util.*;
+
+// Process-wide map from category names to small int ids, so rows, indexes and
+// per-category totals can use an int (or an array slot) instead of a String.
+// Seeded with the default and custom categories; ids are assigned in
+// first-seen order and never reused, so they stay valid for the whole session.
+class CategoryDictionary {
+    private static final Map<String, Integer> ids = new HashMap<>();
+    private static final List<String> names = new ArrayList<>();
+    private static boolean seeded = false;
+
+    private CategoryDictionary() {
+    }
+
+    // Register the default categories and those in categories.txt
+    private static void ensureSeeded() {
+        if (seeded) return;
+        seeded = true;
+
+        List<String> known = new ArrayList<>(TransactionData.getCategories("Expenses"));
+        known.addAll(TransactionData.getCategories("Income"));
+        Collections.sort(known);
+        for (String name : known) {
+            add(name);
+        }
+    }
+
+    // Id for a name, assigning a new one if the name hasn't been seen
+    static synchronized int intern(String name) {
+        ensureSeeded();
+        Integer id = ids.get(name);
+        return id != null ? id : add(name);
+    }
+
+    // Id for a name, or -1 if the name hasn't been seen
+    static synchronized int idOf(String name) {
+        ensureSeeded();
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    static synchronized String nameOf(int id) {
+        return names.get(id);
+    }
+
+    // Number of ids handed out so far; every id is below this
+    static synchronized int size() {
+        ensureSeeded();
+        return names.size();
+    }
+
+    private static int add(String name) {
+        Integer existing = ids.get(name);
+        if (existing != null) return existing;
+
+        int id = names.size();
+        ids.put(name, id);
+        names.add(name);
+        return id;
+    }
+}
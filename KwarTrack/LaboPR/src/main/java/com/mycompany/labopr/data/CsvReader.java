@@ -0,0 +1,160 @@
+package com.mycompany.labopr.data;
+
+import java.io.*;
+
+// Single-pass RFC 4180 CSV tokenizer. Each call to next() reads one record,
+// which may span several lines when a quoted field contains line breaks.
+// Field text is unescaped into one reusable buffer, so reading a record
+// allocates nothing until a caller asks for a field as a String.
+// It accepts what older exports wrote: a quote inside a quoted field that
+// isn't doubled is kept as a literal quote.
+class CsvReader implements Closeable {
+    private static final int INITIAL_FIELDS = 8;
+
+    private final Reader in;
+    private final char[] input = new char[64 * 1024];
+    private int position = 0;
+    private int limit = 0;
+
+    // Unescaped text of the current record and where each field ends in it
+    private final StringBuilder text = new StringBuilder(256);
+    private int[] ends = new int[INITIAL_FIELDS];
+    private int fieldCount = 0;
+
+    CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    // Read the next record; returns false at the end of the input
+    boolean next() throws IOException {
+        text.setLength(0);
+        fieldCount = 0;
+
+        int c = read();
+        if (c < 0) return false;
+
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    endField(); // unterminated quote runs to the end of the input
+                    return true;
+                }
+                if (c == '"') {
+                    int after = read();
+                    if (after == '"') {
+                        text.append('"');
+                    } else if (after == ',' || after == '\n' || after == '\r' || after < 0) {
+                        quoted = false;
+                        c = after;
+                        continue;
+                    } else {
+                        // stray quote from an unescaped export
+                        text.append('"');
+                        c = after;
+                        continue;
+                    }
+                } else {
+                    text.append((char) c);
+                }
+            } else if (c == ',') {
+                endField();
+            } else if (c == '\n' || c == '\r' || c < 0) {
+                endField();
+                if (c == '\r' && peek() == '\n') read();
+                return true;
+            } else if (c == '"' && text.length() == fieldStart()) {
+                quoted = true;
+            } else {
+                text.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int fieldStart() {
+        return fieldCount == 0 ? 0 : ends[fieldCount - 1];
+    }
+
+    private void endField() {
+        if (fieldCount == ends.length) {
+            int[] bigger = new int[ends.length * 2];
+            System.arraycopy(ends, 0, bigger, 0, fieldCount);
+            ends = bigger;
+        }
+        ends[fieldCount++] = text.length();
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return input[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return input[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(input, 0, input.length);
+        if (read <= 0) return false;
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    // Unescaped record text; fields are [start(i), end(i)) within it
+    CharSequence chars() {
+        return text;
+    }
+
+    int start(int field) {
+        return field == 0 ? 0 : ends[field - 1];
+    }
+
+    int end(int field) {
+        return ends[field];
+    }
+
+    String field(int field) {
+        return text.substring(start(field), end(field));
+    }
+
+    // Fields from the given one to the end of the record, joined back with commas
+    String rest(int field) {
+        if (field == fieldCount - 1) return field(field);
+        StringBuilder sb = new StringBuilder(field(field));
+        for (int i = field + 1; i < fieldCount; i++) {
+            sb.append(',').append(text, start(i), end(i));
+        }
+        return sb.toString();
+    }
+
+    boolean fieldEquals(int field, String value) {
+        int start = start(field);
+        int length = end(field) - start;
+        if (length != value.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(start + i) != value.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // True for an empty or whitespace-only line
+    boolean isBlank() {
+        if (fieldCount != 1) return false;
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
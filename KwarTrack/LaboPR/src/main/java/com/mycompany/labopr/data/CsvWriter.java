@@ -0,0 +1,130 @@
+package com.mycompany.labopr.data;
+
+import com.mycompany.labopr.utils.Money;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.*;
+
+// Streaming CSV writer. Each record is built in one reusable StringBuilder,
+// encoded through a reusable char buffer into a large byte buffer, and that
+// buffer is written to the channel whenever it fills up. Numbers and dates
+// are appended digit by digit, so writing a record doesn't allocate.
+// Fields are quoted per RFC 4180 when they need it; CsvReader reads them back.
+class CsvWriter implements Closeable {
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final WritableByteChannel out;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private final StringBuilder record = new StringBuilder(256);
+    private char[] chars = new char[1024];
+    private CharBuffer charBuffer = CharBuffer.wrap(chars);
+    private boolean firstField = true;
+
+    CsvWriter(WritableByteChannel out, Charset charset) {
+        this.out = out;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    // A field, quoted only if it contains a comma, quote or line break
+    CsvWriter field(CharSequence value) {
+        separator();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return appendQuoted(value);
+            }
+        }
+        record.append(value);
+        return this;
+    }
+
+    // A field that is always quoted
+    CsvWriter quoted(CharSequence value) {
+        separator();
+        return appendQuoted(value);
+    }
+
+    // An amount in centavos as plain two-decimal text
+    CsvWriter amount(long cents) {
+        separator();
+        Money.appendPlain(record, cents);
+        return this;
+    }
+
+    // An epoch day as YYYY-MM-DD
+    CsvWriter date(int epochDay) {
+        separator();
+        TransactionColumns.appendDate(record, epochDay);
+        return this;
+    }
+
+    // Finish the record and move it into the output buffer
+    void endRecord() throws IOException {
+        record.append(LINE_SEPARATOR);
+        int length = record.length();
+        if (length > chars.length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+            charBuffer = CharBuffer.wrap(chars);
+        }
+        record.getChars(0, length, chars, 0);
+        charBuffer.clear().limit(length);
+
+        while (true) {
+            CoderResult result = encoder.encode(charBuffer, bytes, false);
+            if (result.isOverflow()) {
+                drain();
+            } else {
+                break;
+            }
+        }
+        record.setLength(0);
+        firstField = true;
+    }
+
+    // A line with no fields
+    void blankLine() throws IOException {
+        endRecord();
+    }
+
+    private void separator() {
+        if (!firstField) record.append(',');
+        firstField = false;
+    }
+
+    private CsvWriter appendQuoted(CharSequence value) {
+        record.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') record.append('"');
+            record.append(c);
+        }
+        record.append('"');
+        return this;
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            charBuffer.clear().limit(0);
+            encoder.encode(charBuffer, bytes, true);
+            encoder.flush(bytes);
+            drain();
+        } finally {
+            out.close();
+        }
+    }
+}
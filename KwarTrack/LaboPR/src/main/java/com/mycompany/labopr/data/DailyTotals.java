@@ -0,0 +1,64 @@
+package com.mycompany.labopr.data;
+
+import java.util.Arrays;
+
+// Sums in centavos per epoch day, kept in day order with running (prefix)
+// sums so "everything up to day X" is a binary search instead of a scan.
+// A day later than every known day, the usual case when adding, just extends
+// the running sums; an earlier day marks them stale from that point on and
+// they are brought up to date by the next query that needs them.
+class DailyTotals {
+    private int[] days = new int[16];
+    private long[] amounts = new long[16];
+    private long[] running = new long[16]; // running[i] = amounts[0] + ... + amounts[i]
+    private int size = 0;
+    private int validThrough = -1; // running[0..validThrough] are current
+
+    // Add an amount to a day
+    void add(int day, long amount) {
+        int i = Arrays.binarySearch(days, 0, size, day);
+        if (i < 0) {
+            i = -i - 1;
+            if (size == days.length) {
+                int capacity = size * 2;
+                days = Arrays.copyOf(days, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+                running = Arrays.copyOf(running, capacity);
+            }
+            System.arraycopy(days, i, days, i + 1, size - i);
+            System.arraycopy(amounts, i, amounts, i + 1, size - i);
+            days[i] = day;
+            amounts[i] = 0;
+            size++;
+        }
+        amounts[i] += amount;
+        if (validThrough >= i) validThrough = i - 1;
+    }
+
+    // Sum of every day up to and including the given day
+    long sumThrough(int day) {
+        int i = Arrays.binarySearch(days, 0, size, day);
+        return runningAt(i >= 0 ? i : -i - 2);
+    }
+
+    // Sum of the days in [from, to]
+    long sumBetween(int from, int to) {
+        if (to < from) return 0;
+        int i = Arrays.binarySearch(days, 0, size, from);
+        return sumThrough(to) - runningAt(i >= 0 ? i - 1 : -i - 2);
+    }
+
+    private long runningAt(int i) {
+        if (i < 0) return 0;
+        for (int j = validThrough + 1; j <= i; j++) {
+            running[j] = (j == 0 ? 0 : running[j - 1]) + amounts[j];
+        }
+        if (i > validThrough) validThrough = i;
+        return running[i];
+    }
+
+    void clear() {
+        size = 0;
+        validThrough = -1;
+    }
+}
@@ -0,0 +1,179 @@
+package com.mycompany.labopr.data;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Shared write paths for the data files.
+// Files that are rewritten as a whole go to a temporary file that is forced
+// to disk and then renamed over the original, so a crash leaves either the
+// old or the new contents, never a truncated file.
+// Appends to log files are made durable according to the sync interval:
+// 0 forces every append to disk before returning, while N > 0 only marks
+// the file dirty and a background thread forces the dirty files every N ms,
+// so a burst of appends shares a single fsync.
+class DurableFiles {
+    static final long DEFAULT_SYNC_INTERVAL_MS = 1000;
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final Set<String> dirty = new LinkedHashSet<>();
+    private static long syncInterval = -1; // read from the settings on first use
+    private static ScheduledExecutorService flusher;
+    private static ScheduledFuture<?> flushTask;
+
+    private DurableFiles() {
+    }
+
+    // Writes the text of a file
+    interface Content {
+        void write(BufferedWriter out) throws IOException;
+    }
+
+    // Writes the bytes of a binary file
+    interface BinaryContent {
+        void write(OutputStream out) throws IOException;
+    }
+
+    // Replace a file's contents through a temporary file and an atomic rename
+    static void replace(String file, Content content) throws IOException {
+        replace(file, Charset.defaultCharset(), content);
+    }
+
+    static void replace(String file, Charset charset, Content content) throws IOException {
+        install(writeTemp(file, charset, content), file);
+    }
+
+    // First half of replace: write the new contents next to the file and force
+    // them to disk, leaving the original untouched until install()
+    static Path writeTemp(String file, Content content) throws IOException {
+        return writeTemp(file, Charset.defaultCharset(), content);
+    }
+
+    static Path writeTemp(String file, Charset charset, Content content) throws IOException {
+        return writeTempBytes(file, stream -> {
+            BufferedWriter out = new BufferedWriter(new OutputStreamWriter(stream, charset));
+            content.write(out);
+            out.flush();
+        });
+    }
+
+    static Path writeTempBytes(String file, BinaryContent content) throws IOException {
+        Path temp = Paths.get(file + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BufferedOutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+            content.write(out);
+            out.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return temp;
+    }
+
+    // Second half of replace: rename a file written by writeTemp over the original
+    static void install(Path temp, String file) throws IOException {
+        Path target = Paths.get(file);
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target);
+    }
+
+    // Make the rename itself durable; not every platform can open a directory
+    private static void syncDirectory(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory == null) return;
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    // Append text to a log file and sync it according to the sync interval
+    static void append(String file, Content content) throws IOException {
+        append(file, Charset.defaultCharset(), content);
+    }
+
+    static void append(String file, Charset charset, Content content) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            BufferedWriter out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), charset));
+            content.write(out);
+            out.flush();
+            appended(channel, file);
+        }
+    }
+
+    // Call after appending to a file through a channel of your own, before closing it
+    static void appended(FileChannel channel, String file) throws IOException {
+        synchronized (DurableFiles.class) {
+            if (syncInterval() > 0) {
+                dirty.add(file);
+                return;
+            }
+        }
+        channel.force(false);
+    }
+
+    // Milliseconds between syncs of appended files; 0 syncs every append
+    static synchronized void setSyncInterval(long milliseconds) {
+        syncInterval = Math.max(0, milliseconds);
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        if (syncInterval > 0) {
+            if (flusher == null) {
+                flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "fsync-flusher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            flushTask = flusher.scheduleWithFixedDelay(DurableFiles::syncDirty,
+                syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+        } else if (flusher != null) {
+            flusher.execute(DurableFiles::syncDirty); // anything deferred under the old interval
+        }
+    }
+
+    private static long syncInterval() {
+        if (syncInterval < 0) {
+            long milliseconds = DEFAULT_SYNC_INTERVAL_MS;
+            try {
+                milliseconds = Long.parseLong(SettingsData.getSetting(SettingsData.SYNC_INTERVAL_MS).trim());
+            } catch (NumberFormatException ignored) {
+            }
+            setSyncInterval(milliseconds);
+        }
+        return syncInterval;
+    }
+
+    // Force every file appended to since the last sync
+    private static void syncDirty() {
+        List<String> files;
+        synchronized (DurableFiles.class) {
+            if (dirty.isEmpty()) return;
+            files = new ArrayList<>(dirty);
+            dirty.clear();
+        }
+        for (String file : files) {
+            try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.WRITE)) {
+                channel.force(false);
+            } catch (NoSuchFileException ignored) {
+                // deleted since, e.g. by a reset
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.mycompany.labopr.data;
+
+import java.util.Arrays;
+
+// Growable list of primitive ints, used for row id lists in the indexes
+class IntList {
+    static final IntList EMPTY = new IntList(0);
+
+    private int[] values;
+    private int size = 0;
+
+    IntList() {
+        this(8);
+    }
+
+    private IntList(int capacity) {
+        values = new int[capacity];
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(8, size * 2));
+        }
+        values[size++] = value;
+    }
+
+    int get(int i) {
+        return values[i];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,148 @@
+package com.mycompany.labopr.data;
+
+import java.io.*;
+import java.nio.CharBuffer;
+
+// Reads delimiter-separated lines into one reusable char buffer and records
+// where each field starts and ends, so callers can parse fields in place
+// instead of going through readLine() and String.split() for every line.
+// Lines end at \n, \r or \r\n, like BufferedReader.readLine().
+class LineScanner implements Closeable {
+    private static final int INITIAL_BUFFER = 64 * 1024;
+
+    private final Reader in;
+    private char[] buffer = new char[INITIAL_BUFFER];
+    private CharBuffer view = CharBuffer.wrap(buffer);
+    private int position = 0;
+    private int limit = 0;
+    private boolean eof = false;
+    private boolean skipLineFeed = false;
+
+    // Field boundaries of the current line, as offsets into the buffer
+    private final int[] starts;
+    private final int[] ends;
+    private int fieldCount = 0;
+
+    LineScanner(Reader in, int maxFields) {
+        this.in = in;
+        this.starts = new int[maxFields];
+        this.ends = new int[maxFields];
+    }
+
+    // Move to the next line and split it on the delimiter into at most
+    // maxFields fields, the last one taking the rest of the line.
+    // Returns false at the end of the input.
+    boolean next(char delimiter) throws IOException {
+        int lineEnd = findLineEnd();
+        if (lineEnd < 0) return false;
+
+        int lineStart = position;
+        fieldCount = 0;
+        int fieldStart = lineStart;
+        for (int i = lineStart; i < lineEnd && fieldCount < starts.length - 1; i++) {
+            if (buffer[i] == delimiter) {
+                starts[fieldCount] = fieldStart;
+                ends[fieldCount++] = i;
+                fieldStart = i + 1;
+            }
+        }
+        starts[fieldCount] = fieldStart;
+        ends[fieldCount++] = lineEnd;
+
+        // Step over the terminator; a \r\n pair split across reads is handled on the next call
+        position = lineEnd;
+        if (position < limit) {
+            skipLineFeed = buffer[position] == '\r';
+            position++;
+        }
+        return true;
+    }
+
+    // Offset of the current line's terminator (or end of input), filling the buffer as needed
+    private int findLineEnd() throws IOException {
+        int scanned = position;
+        while (true) {
+            if (skipLineFeed && position < limit) {
+                skipLineFeed = false;
+                if (buffer[position] == '\n') position++;
+                scanned = position;
+            }
+            for (int i = scanned; i < limit; i++) {
+                char c = buffer[i];
+                if (c == '\n' || c == '\r') return i;
+            }
+            if (eof) {
+                return position < limit ? limit : -1;
+            }
+            scanned = limit - position;
+            fill();
+        }
+    }
+
+    // Keep the unread tail and read more input behind it
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (remaining == buffer.length) {
+            // a single line longer than the buffer
+            char[] bigger = new char[buffer.length * 2];
+            System.arraycopy(buffer, position, bigger, 0, remaining);
+            buffer = bigger;
+            view = CharBuffer.wrap(buffer);
+        } else {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        }
+        position = 0;
+        limit = remaining;
+
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    int start(int field) {
+        return starts[field];
+    }
+
+    int end(int field) {
+        return ends[field];
+    }
+
+    char[] buffer() {
+        return buffer;
+    }
+
+    // The buffer as a CharSequence, indexed the same way as start() and end()
+    CharSequence chars() {
+        return view;
+    }
+
+    int length(int field) {
+        return ends[field] - starts[field];
+    }
+
+    boolean fieldEquals(int field, String text) {
+        int start = starts[field];
+        int length = ends[field] - start;
+        if (length != text.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (buffer[start + i] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    String field(int field) {
+        return new String(buffer, starts[field], ends[field] - starts[field]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
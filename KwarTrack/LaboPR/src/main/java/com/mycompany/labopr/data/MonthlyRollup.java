@@ -0,0 +1,75 @@
+package com.mycompany.labopr.data;
+
+import java.util.*;
+
+// Running totals in centavos per (type, month) and per (type, month, category).
+// Updated as rows are stored so monthly sums never touch the raw rows.
+// Per-category sums are flat long[] arrays indexed by dictionary id.
+class MonthlyRollup {
+    private final Map<Integer, Totals> totals = new HashMap<>();
+
+    private static class Totals {
+        long total;
+        long[] byCategory = new long[0];
+        int[] counts = new int[0];
+    }
+
+    // Fold a newly stored row into the totals
+    void add(byte type, int month, int category, long amount) {
+        Totals t = totals.computeIfAbsent(key(type, month), k -> new Totals());
+        if (category >= t.byCategory.length) {
+            int capacity = Math.max(category + 1, CategoryDictionary.size());
+            t.byCategory = Arrays.copyOf(t.byCategory, capacity);
+            t.counts = Arrays.copyOf(t.counts, capacity);
+        }
+        t.total += amount;
+        t.byCategory[category] += amount;
+        t.counts[category]++;
+    }
+
+    long total(byte type, int month) {
+        Totals t = totals.get(key(type, month));
+        return t == null ? 0 : t.total;
+    }
+
+    long total(byte type, int month, int category) {
+        Totals t = totals.get(key(type, month));
+        return t == null || category < 0 || category >= t.byCategory.length ? 0 : t.byCategory[category];
+    }
+
+    // Per-category totals by name for categories that have rows in the month
+    Map<String, Long> byCategory(byte type, int month) {
+        Map<String, Long> result = new HashMap<>();
+        Totals t = totals.get(key(type, month));
+        if (t != null) {
+            for (int id = 0; id < t.counts.length; id++) {
+                if (t.counts[id] > 0) {
+                    result.put(CategoryDictionary.nameOf(id), t.byCategory[id]);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Names of categories that have rows in the month
+    Set<String> categories(byte type, int month) {
+        Set<String> result = new HashSet<>();
+        Totals t = totals.get(key(type, month));
+        if (t != null) {
+            for (int id = 0; id < t.counts.length; id++) {
+                if (t.counts[id] > 0) {
+                    result.add(CategoryDictionary.nameOf(id));
+                }
+            }
+        }
+        return result;
+    }
+
+    void clear() {
+        totals.clear();
+    }
+
+    private static int key(byte type, int month) {
+        return (month << 1) | type;
+    }
+}
@@ -1,8 +1,17 @@
 package com.mycompany.labopr.data;
 
 import com.mycompany.labopr.data.TransactionData;
+import com.mycompany.labopr.utils.DataChangeEvent;
+import com.mycompany.labopr.utils.DataEvents;
+import com.mycompany.labopr.utils.Money;
 import java.io.*;
+import java.nio.channels.*;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 public class SettingsData {
     private static final String SETTINGS_FILE = "settings.txt";
@@ -14,6 +23,18 @@ public class SettingsData {
     public static final String DATE_FORMAT = "date_format";
     public static final String THEME_MODE = "theme_mode";
     public static final String ACCENT_COLOR = "accent_color";
+    public static final String STORAGE_BACKEND = "storage_backend";
+    public static final String SYNC_INTERVAL_MS = "fsync_interval_ms";
+    
+    // Transaction storage backends
+    public static final String STORAGE_TEXT = "text";
+    public static final String STORAGE_BINARY = "binary";
+    
+    // Number of imported transactions written to disk at a time
+    private static final int IMPORT_BATCH_SIZE = 5000;
+    
+    // Rows between progress reports and cancellation checks
+    private static final int PROGRESS_INTERVAL = 1000;
     
     // Default values
     private static final Map<String, String> DEFAULT_SETTINGS = new HashMap<>();
@@ -24,6 +45,8 @@ public class SettingsData {
         DEFAULT_SETTINGS.put(DATE_FORMAT, "YYYY-MM-DD");
         DEFAULT_SETTINGS.put(THEME_MODE, "light");
         DEFAULT_SETTINGS.put(ACCENT_COLOR, "Green");
+        DEFAULT_SETTINGS.put(STORAGE_BACKEND, STORAGE_TEXT);
+        DEFAULT_SETTINGS.put(SYNC_INTERVAL_MS, String.valueOf(DurableFiles.DEFAULT_SYNC_INTERVAL_MS));
     }
     
     // Get a setting value
@@ -39,6 +62,12 @@ public class SettingsData {
         saveAllSettings(settings);
     }
     
+    // How often appended data is forced to disk: 0 for every write, or every N milliseconds
+    public static void setSyncInterval(long milliseconds) {
+        setSetting(SYNC_INTERVAL_MS, String.valueOf(milliseconds));
+        DurableFiles.setSyncInterval(milliseconds);
+    }
+    
     // Get all settings
     public static Map<String, String> getAllSettings() {
         Map<String, String> settings = new HashMap<>(DEFAULT_SETTINGS);
@@ -59,11 +88,13 @@ public class SettingsData {
     
     // Save all settings
     private static void saveAllSettings(Map<String, String> settings) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(SETTINGS_FILE))) {
-            for (Map.Entry<String, String> entry : settings.entrySet()) {
-                bw.write(entry.getKey() + "=" + entry.getValue());
-                bw.newLine();
-            }
+        try {
+            DurableFiles.replace(SETTINGS_FILE, bw -> {
+                for (Map.Entry<String, String> entry : settings.entrySet()) {
+                    bw.write(entry.getKey() + "=" + entry.getValue());
+                    bw.newLine();
+                }
+            });
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -72,11 +103,25 @@ public class SettingsData {
     // Reset all data (transactions, budgets, balance)
     public static boolean resetAllData() {
         try {
-            // Delete data files
-            new File("balance.txt").delete();
-            new File("transactions.txt").delete();
-            new File("budgets.txt").delete();
-            new File("categories.txt").delete();
+            // Drop the in-memory copies and delete the files while holding both
+            // stores' locks, so a load already running can't read the old files
+            // back in between. The repository lock is always taken first.
+            synchronized (TransactionRepository.class) {
+                synchronized (BudgetStore.class) {
+                    TransactionRepository.invalidate();
+                    BudgetStore.invalidate();
+                    
+                    // Delete data files
+                    new File("balance.txt").delete();
+                    new File("transactions.txt").delete();
+                    new File(BudgetStore.BUDGETS_FILE).delete();
+                    new File("categories.txt").delete();
+                    new File(BinaryTransactionLog.RECORDS_FILE).delete();
+                    new File(BinaryTransactionLog.HEAP_FILE).delete();
+                    new File(BinaryTransactionLog.CATEGORIES_FILE).delete();
+                }
+            }
+            DataEvents.publish(new DataChangeEvent.DataReset());
             return true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -84,91 +129,213 @@ public class SettingsData {
         }
     }
     
-    // Export data to CSV
+    // Progress callback for long-running imports and exports
+    public interface TransferProgress {
+        // rows handled so far; done/total count bytes read for an import and rows written for an export
+        void progress(long rows, long done, long total);
+        
+        // Polled between rows; returning true stops the transfer
+        boolean isCancelled();
+    }
+    
+    // Export data to CSV, gzip-compressed when the path ends in ".gz".
+    // Rows are streamed from the transaction store, so memory use doesn't
+    // grow with the size of the history.
     public static boolean exportData(String filepath) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(filepath))) {
+        return exportData(filepath, null);
+    }
+    
+    // Export with progress reports; a cancelled export deletes the partial file
+    public static boolean exportData(String filepath, TransferProgress progress) {
+        try (CsvWriter csv = new CsvWriter(openExportChannel(filepath), Charset.defaultCharset())) {
             // Export balance
-            Double balance = TransactionData.getBalance();
+            Long balance = TransactionData.getBalance();
             if (balance != null) {
-                bw.write("BALANCE," + balance);
-                bw.newLine();
+                csv.field("BALANCE").amount(balance).endRecord();
             }
             
             // Export transactions
-            bw.write("TRANSACTIONS");
-            bw.newLine();
-            bw.write("Type,Date,Category,Amount,Comment");
-            bw.newLine();
+            csv.field("TRANSACTIONS").endRecord();
+            csv.field("Type").field("Date").field("Category").field("Amount").field("Comment").endRecord();
             
-            List<TransactionData.Transaction> transactions = TransactionData.getAllTransactions();
-            for (TransactionData.Transaction t : transactions) {
-                bw.write(String.format("%s,%s,%s,%.2f,\"%s\"", 
-                    t.type, t.date, t.category, t.amount, t.comment));
-                bw.newLine();
-            }
+            TransactionRepository.scan((columns, row) -> {
+                csv.field(TransactionColumns.typeName(columns.type(row)));
+                int date = columns.date(row);
+                if (date == TransactionColumns.NO_DATE) {
+                    csv.field(columns.dateString(row));
+                } else {
+                    csv.date(date);
+                }
+                csv.field(CategoryDictionary.nameOf(columns.category(row)))
+                    .amount(columns.amount(row))
+                    .quoted(columns.comment(row))
+                    .endRecord();
+                
+                if (progress != null && (row + 1) % PROGRESS_INTERVAL == 0) {
+                    if (progress.isCancelled()) throw new InterruptedIOException("Export cancelled");
+                    progress.progress(row + 1, row + 1, columns.size());
+                }
+            });
             
             // Export budgets
-            bw.newLine();
-            bw.write("BUDGETS");
-            bw.newLine();
-            bw.write("Category,Month,Goal");
-            bw.newLine();
+            csv.blankLine();
+            csv.field("BUDGETS").endRecord();
+            csv.field("Category").field("Month").field("Goal").endRecord();
             
-            List<BudgetData.BudgetGoal> budgets = BudgetData.getAllBudgetGoals();
-            for (BudgetData.BudgetGoal b : budgets) {
-                bw.write(String.format("%s,%s,%.2f", b.category, b.month, b.goal));
-                bw.newLine();
+            for (BudgetData.BudgetGoal b : BudgetData.getAllBudgetGoals()) {
+                csv.field(b.category).field(b.month).amount(b.goalCents).endRecord();
             }
             
             return true;
+        } catch (InterruptedIOException e) {
+            new File(filepath).delete();
+            return false;
         } catch (IOException e) {
             e.printStackTrace();
             return false;
         }
     }
     
-    // Import data from CSV (simplified - assumes correct format)
+    private static WritableByteChannel openExportChannel(String filepath) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filepath), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        if (!filepath.endsWith(".gz")) {
+            return channel;
+        }
+        return Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+    }
+    
+    private static ReadableByteChannel openImportChannel(FileChannel channel, String filepath) throws IOException {
+        if (!filepath.endsWith(".gz")) {
+            return channel;
+        }
+        return Channels.newChannel(new GZIPInputStream(Channels.newInputStream(channel), 64 * 1024));
+    }
+    
+    // Import data from CSV.
+    // Transactions are committed in batches with one write each; budget rows
+    // are merged in memory and saved once at the end.
     public static boolean importData(String filepath) {
-        try (BufferedReader br = new BufferedReader(new FileReader(filepath))) {
-            String line;
+        return importData(filepath, null);
+    }
+    
+    // Import with progress reports. Cancelling drops the batch in progress and
+    // the budget section, so only whole transaction batches are kept.
+    // The import's own change events are held back until it ends, so the
+    // panels refresh once instead of once per batch; saves made elsewhere
+    // meanwhile still show up right away.
+    public static boolean importData(String filepath, TransferProgress progress) {
+        List<TransactionData.Transaction> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        Map<String, BudgetData.BudgetGoal> budgets = new LinkedHashMap<>();
+        long importedTransactions = 0;
+        int importedBudgets = 0;
+        
+        DataEvents.hold();
+        try (FileChannel file = FileChannel.open(Paths.get(filepath), StandardOpenOption.READ);
+             CsvReader csv = new CsvReader(Channels.newReader(openImportChannel(file, filepath), Charset.defaultCharset()))) {
+            long fileSize = file.size();
+            long rows = 0;
             String section = "";
             
-            while ((line = br.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
+            while (csv.next()) {
+                if (csv.isBlank()) continue;
                 
-                if (line.startsWith("BALANCE,")) {
-                    double balance = Double.parseDouble(line.split(",")[1]);
+                if (csv.fieldCount() >= 2 && csv.fieldEquals(0, "BALANCE")) {
+                    long balance = Money.parse(csv.chars(), csv.start(1), csv.end(1));
                     TransactionData.setBalance(balance);
-                } else if (line.equals("TRANSACTIONS")) {
+                } else if (csv.fieldCount() == 1 && csv.fieldEquals(0, "TRANSACTIONS")) {
                     section = "TRANSACTIONS";
-                    br.readLine(); // Skip header
-                } else if (line.equals("BUDGETS")) {
+                    csv.next(); // Skip header
+                } else if (csv.fieldCount() == 1 && csv.fieldEquals(0, "BUDGETS")) {
                     section = "BUDGETS";
-                    br.readLine(); // Skip header
+                    csv.next(); // Skip header
                 } else if (section.equals("TRANSACTIONS")) {
-                    String[] parts = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", 5);
-                    if (parts.length == 5) {
-                        String comment = parts[4].replaceAll("\"", "");
-                        TransactionData.Transaction t = new TransactionData.Transaction(
-                            parts[0], parts[1], parts[2], Double.parseDouble(parts[3]), comment
-                        );
-                        TransactionData.saveTransaction(t);
+                    TransactionData.Transaction t = parseTransactionRow(csv);
+                    if (t != null) {
+                        batch.add(t);
+                        if (batch.size() == IMPORT_BATCH_SIZE) {
+                            if (!TransactionData.saveTransactions(batch)) return false;
+                            importedTransactions += batch.size();
+                            batch.clear();
+                        }
                     }
                 } else if (section.equals("BUDGETS")) {
-                    String[] parts = line.split(",");
-                    if (parts.length == 3) {
-                        BudgetData.BudgetGoal b = new BudgetData.BudgetGoal(
-                            parts[0], parts[1], Double.parseDouble(parts[2])
-                        );
-                        BudgetData.saveBudgetGoal(b);
+                    BudgetData.BudgetGoal b = parseBudgetRow(csv);
+                    if (b != null) {
+                        // a later row for the same category and month wins
+                        budgets.put(b.category + "|" + b.month, b);
                     }
                 }
+                
+                if (progress != null && ++rows % PROGRESS_INTERVAL == 0) {
+                    if (progress.isCancelled()) return false;
+                    progress.progress(rows, file.position(), fileSize);
+                }
             }
             
+            if (progress != null && progress.isCancelled()) return false;
+            if (!batch.isEmpty() && !TransactionData.saveTransactions(batch)) return false;
+            importedTransactions += batch.size();
+            BudgetData.saveBudgetGoals(new ArrayList<>(budgets.values()));
+            importedBudgets = budgets.size();
+            if (progress != null) progress.progress(rows, fileSize, fileSize);
             return true;
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            DataEvents.publish(new DataChangeEvent.ImportCompleted(importedTransactions, importedBudgets));
+            DataEvents.release();
+        }
+    }
+    
+    // Parse a TRANSACTIONS record, or return null if it isn't a valid transaction
+    private static TransactionData.Transaction parseTransactionRow(CsvReader csv) {
+        if (csv.fieldCount() < 5) return null;
+        if (!csv.fieldEquals(0, "Expenses") && !csv.fieldEquals(0, "Income")) return null;
+        
+        String date = csv.field(1);
+        String category = csv.field(2);
+        if (TransactionColumns.parseDate(date) == TransactionColumns.NO_DATE) return null;
+        if (!isStorableField(category)) return null;
+        
+        try {
+            long amount = Money.parse(csv.chars(), csv.start(3), csv.end(3));
+            // an unquoted comment may have been split on its own commas, and a
+            // quoted one may hold line breaks that transactions.txt can't store;
+            // a | is fine there since the comment is the last field
+            String comment = csv.rest(4).replace("\r\n", " ").replace('\r', ' ').replace('\n', ' ');
+            return new TransactionData.Transaction(csv.field(0), date, category, amount, comment);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    // Parse a BUDGETS record, or return null if it isn't a valid budget goal
+    private static BudgetData.BudgetGoal parseBudgetRow(CsvReader csv) {
+        if (csv.fieldCount() != 3) return null;
+        
+        String category = csv.field(0);
+        String month = csv.field(1);
+        if (!isStorableField(category)) return null;
+        if (TransactionColumns.parseDate(month + "-01") == TransactionColumns.NO_DATE) return null;
+        
+        try {
+            long goal = Money.parse(csv.chars(), csv.start(2), csv.end(2));
+            return new BudgetData.BudgetGoal(category, month, goal);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    // A quoted CSV field can hold anything, but the data files are split on |
+    // and on line breaks, so a field holding one would break its record
+    private static boolean isStorableField(String field) {
+        if (field.isEmpty()) return false;
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '|' || c == '\r' || c == '\n') return false;
         }
+        return true;
     }
 }
\ No newline at end of file
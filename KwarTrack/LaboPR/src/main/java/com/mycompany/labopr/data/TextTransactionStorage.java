@@ -0,0 +1,153 @@
+package com.mycompany.labopr.data;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// The original pipe-separated transactions.txt, one transaction per line.
+// Large files are split into newline-aligned byte ranges that are parsed in
+// parallel on the common ForkJoinPool and then appended in file order.
+// Appends go through one channel that stays open until the storage is closed.
+class TextTransactionStorage implements TransactionStorage {
+    static final String TRANSACTIONS_FILE = "transactions.txt";
+
+    // Files below this size are parsed on the calling thread
+    private static final long PARALLEL_THRESHOLD = 4L * 1024 * 1024;
+    private static final long CHUNK_SIZE = 2L * 1024 * 1024;
+    private static final int APPEND_BUFFER_SIZE = 64 * 1024;
+
+    private FileChannel appendChannel;
+    private BufferedWriter appendWriter;
+
+    @Override
+    public void load(TransactionColumns into) throws IOException {
+        Path path = Paths.get(TRANSACTIONS_FILE);
+        if (!Files.exists(path)) return; // file may not exist yet
+
+        long size = Files.size(path);
+        int workers = ForkJoinPool.getCommonPoolParallelism();
+        if (size < PARALLEL_THRESHOLD || workers < 2) {
+            try (Reader reader = new FileReader(TRANSACTIONS_FILE)) {
+                parse(reader, into);
+            }
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<Callable<TransactionColumns>> tasks = new ArrayList<>();
+            for (long[] range : chunks(channel, size, Math.max(CHUNK_SIZE, size / (workers * 4L)))) {
+                tasks.add(() -> parseRange(channel, range[0], range[1]));
+            }
+            for (Future<TransactionColumns> chunk : ForkJoinPool.commonPool().invokeAll(tasks)) {
+                into.addAll(chunk.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading " + TRANSACTIONS_FILE);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    private static void parse(Reader reader, TransactionColumns into) throws IOException {
+        TransactionLineParser parser = new TransactionLineParser();
+        try (LineScanner line = new LineScanner(reader, TransactionLineParser.FIELDS)) {
+            while (line.next('|')) {
+                parser.parse(line, into);
+            }
+        }
+    }
+
+    // Split [0, size) into ranges of about chunkSize bytes, each ending just after a '\n'
+    private static List<long[]> chunks(FileChannel channel, long size, long chunkSize) throws IOException {
+        List<long[]> ranges = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(start + chunkSize, size);
+            while (end < size) {
+                probe.clear();
+                int read = channel.read(probe, end);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                int newline = -1;
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += read;
+            }
+            ranges.add(new long[] { start, Math.min(end, size) });
+            start = end;
+        }
+        return ranges;
+    }
+
+    // Parse one byte range into its own columns; '\n' can't occur inside a
+    // multi-byte character, so a range always holds whole characters
+    private static TransactionColumns parseRange(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, start + bytes.position()) < 0) break;
+        }
+        TransactionColumns columns = new TransactionColumns();
+        parse(new InputStreamReader(new ByteArrayInputStream(bytes.array(), 0, bytes.position()),
+                Charset.defaultCharset()), columns);
+        return columns;
+    }
+
+    @Override
+    public void append(List<TransactionData.Transaction> transactions) throws IOException {
+        try {
+            if (appendChannel == null) {
+                appendChannel = FileChannel.open(Paths.get(TRANSACTIONS_FILE), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                appendWriter = new BufferedWriter(new OutputStreamWriter(
+                        Channels.newOutputStream(appendChannel), Charset.defaultCharset()), APPEND_BUFFER_SIZE);
+            }
+            for (TransactionData.Transaction t : transactions) {
+                appendWriter.write(t.toFileString());
+                appendWriter.newLine();
+            }
+            appendWriter.flush();
+            DurableFiles.appended(appendChannel, TRANSACTIONS_FILE);
+        } catch (IOException e) {
+            close(); // start from a fresh channel next time
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        FileChannel channel = appendChannel;
+        appendChannel = null;
+        appendWriter = null;
+        if (channel != null) channel.close();
+    }
+
+    @Override
+    public void rewrite(TransactionColumns from) throws IOException {
+        close(); // the rewrite replaces the file the channel points at
+        DurableFiles.replace(TRANSACTIONS_FILE, bw -> {
+            for (int row = 0; row < from.size(); row++) {
+                bw.write(from.toTransaction(row).toFileString());
+                bw.newLine();
+            }
+        });
+    }
+}
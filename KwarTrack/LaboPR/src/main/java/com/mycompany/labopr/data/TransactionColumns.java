@@ -0,0 +1,297 @@
+package com.mycompany.labopr.data;
+
+import java.time.LocalDate;
+import java.util.*;
+
+// Column-oriented transaction storage: one primitive array per field.
+// Dates are epoch days, types are byte codes, categories are dictionary ids and
+// amounts are centavos. Comments live in their own column and are only read
+// when a row is turned back into a Transaction; a backend can leave them on
+// disk and hand over a reference that is resolved through a CommentSource.
+class TransactionColumns {
+    static final byte EXPENSES = 0;
+    static final byte INCOME = 1;
+
+    // Date value for rows whose date isn't a valid YYYY-MM-DD
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int size = 0;
+    private int[] dates = new int[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int[] categories = new int[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private String[] comments = new String[INITIAL_CAPACITY];
+
+    // Backend references for comments that haven't been read yet; 0 means no comment
+    private long[] commentRefs;
+    private CommentSource commentSource;
+
+    // Original text of dates that couldn't be stored as epoch days
+    private final Map<Integer, String> rawDates = new HashMap<>();
+
+    // Resolves comment references handed over by a storage backend
+    interface CommentSource {
+        String read(long ref);
+    }
+
+    // Append a transaction and return its row id, or -1 if its type is unknown
+    int add(TransactionData.Transaction t) {
+        byte type = typeCode(t.type);
+        if (type < 0) return -1; // neither Expenses nor Income
+
+        int date = parseDate(t.date);
+        int row = add(type, date, CategoryDictionary.intern(t.category), t.amountCents, t.comment);
+        if (date == NO_DATE) {
+            setRawDate(row, t.date);
+        }
+        return row;
+    }
+
+    // Append a row and return its id
+    int add(byte type, int date, int category, long amount, String comment) {
+        if (size == dates.length) {
+            grow();
+        }
+        dates[size] = date;
+        types[size] = type;
+        categories[size] = category;
+        amounts[size] = amount;
+        comments[size] = comment.isEmpty() ? null : comment;
+        return size++;
+    }
+
+    // Append every row of another set of columns, keeping their order.
+    // The other columns must hold their comments as text, not backend references.
+    void addAll(TransactionColumns other) {
+        int offset = size;
+        int count = other.size;
+        while (size + count > dates.length) {
+            grow();
+        }
+        System.arraycopy(other.dates, 0, dates, offset, count);
+        System.arraycopy(other.types, 0, types, offset, count);
+        System.arraycopy(other.categories, 0, categories, offset, count);
+        System.arraycopy(other.amounts, 0, amounts, offset, count);
+        System.arraycopy(other.comments, 0, comments, offset, count);
+        for (Map.Entry<Integer, String> raw : other.rawDates.entrySet()) {
+            rawDates.put(offset + raw.getKey(), raw.getValue());
+        }
+        size += count;
+    }
+
+    // Append a row whose comment stays with the backend until it is asked for
+    int addWithCommentRef(byte type, int date, int category, long amount, long commentRef) {
+        int row = add(type, date, category, amount, "");
+        if (commentRef != 0) {
+            if (commentRefs == null) {
+                commentRefs = new long[dates.length];
+            }
+            commentRefs[row] = commentRef;
+        }
+        return row;
+    }
+
+    void setCommentSource(CommentSource source) {
+        this.commentSource = source;
+    }
+
+    // Keep the original text for a row stored with NO_DATE
+    void setRawDate(int row, String date) {
+        rawDates.put(row, date);
+    }
+
+    private void grow() {
+        int capacity = dates.length * 2;
+        dates = Arrays.copyOf(dates, capacity);
+        types = Arrays.copyOf(types, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        comments = Arrays.copyOf(comments, capacity);
+        if (commentRefs != null) {
+            commentRefs = Arrays.copyOf(commentRefs, capacity);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte type(int row) {
+        return types[row];
+    }
+
+    int date(int row) {
+        return dates[row];
+    }
+
+    int category(int row) {
+        return categories[row];
+    }
+
+    long amount(int row) {
+        return amounts[row];
+    }
+
+    String comment(int row) {
+        String comment = comments[row];
+        if (comment == null && commentRefs != null && commentRefs[row] != 0) {
+            comment = commentSource.read(commentRefs[row]);
+        }
+        return comment == null ? "" : comment;
+    }
+
+    // Date text as it was saved
+    String dateString(int row) {
+        int date = dates[row];
+        return date == NO_DATE ? rawDates.get(row) : formatDate(date);
+    }
+
+    // Month code of a row, or -1 if its date has no usable YYYY-MM
+    int month(int row) {
+        int date = dates[row];
+        return date == NO_DATE ? monthCode(rawDates.get(row)) : monthOfDay(date);
+    }
+
+    // Rebuild the Transaction for a row
+    TransactionData.Transaction toTransaction(int row) {
+        return new TransactionData.Transaction(
+            typeName(types[row]),
+            dateString(row),
+            CategoryDictionary.nameOf(categories[row]),
+            amounts[row],
+            comment(row)
+        );
+    }
+
+    void clear() {
+        size = 0;
+        dates = new int[INITIAL_CAPACITY];
+        types = new byte[INITIAL_CAPACITY];
+        categories = new int[INITIAL_CAPACITY];
+        amounts = new long[INITIAL_CAPACITY];
+        comments = new String[INITIAL_CAPACITY];
+        commentRefs = null;
+        commentSource = null;
+        rawDates.clear();
+    }
+
+    // Byte code for a type name, or -1 if it isn't a known type
+    static byte typeCode(String type) {
+        if (type.equals("Expenses")) return EXPENSES;
+        if (type.equals("Income")) return INCOME;
+        return -1;
+    }
+
+    static String typeName(byte code) {
+        return code == INCOME ? "Income" : "Expenses";
+    }
+
+    // Epoch day of a YYYY-MM-DD date, or NO_DATE if it isn't one
+    static int parseDate(String date) {
+        if (date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return NO_DATE;
+        }
+        return epochDay(digits(date, 0, 4), digits(date, 5, 7), digits(date, 8, 10));
+    }
+
+    // Epoch day of the YYYY-MM-DD date in chars[start, end), or NO_DATE, without allocating
+    static int parseDate(char[] chars, int start, int end) {
+        if (end - start != 10 || chars[start + 4] != '-' || chars[start + 7] != '-') {
+            return NO_DATE;
+        }
+        return epochDay(digits(chars, start, start + 4), digits(chars, start + 5, start + 7),
+                digits(chars, start + 8, start + 10));
+    }
+
+    // Epoch day of a calendar date, or NO_DATE if the date doesn't exist
+    private static int epochDay(int year, int month, int day) {
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return NO_DATE;
+        }
+        // Days-from-civil conversion, the inverse of monthOfDay
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    static String formatDate(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay).toString();
+    }
+
+    // Append an epoch day as YYYY-MM-DD without allocating
+    static StringBuilder appendDate(StringBuilder sb, int epochDay) {
+        int monthCode = monthOfDay(epochDay);
+        int year = Math.floorDiv(monthCode, 12);
+        int month = monthCode - year * 12 + 1;
+        int day = epochDay - epochDay(year, month, 1) + 1;
+
+        if (year < 1000) sb.append('0');
+        if (year < 100) sb.append('0');
+        if (year < 10) sb.append('0');
+        sb.append(year).append('-');
+        if (month < 10) sb.append('0');
+        sb.append(month).append('-');
+        if (day < 10) sb.append('0');
+        return sb.append(day);
+    }
+
+    // Month code (year * 12 + month - 1) of an epoch day, without allocating
+    static int monthOfDay(int epochDay) {
+        // Civil-from-days conversion for the proleptic Gregorian calendar
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 12 + month - 1;
+    }
+
+    // Month code of the YYYY-MM prefix of a date or month string, or -1 if there isn't one
+    static int monthCode(String text) {
+        if (text == null || text.length() < 7 || text.charAt(4) != '-') {
+            return -1;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        if (year < 0 || month < 1 || month > 12) {
+            return -1;
+        }
+        return year * 12 + month - 1;
+    }
+
+    private static int digits(char[] chars, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -1,11 +1,13 @@
 package com.mycompany.labopr.data;
 
+import com.mycompany.labopr.utils.DataChangeEvent;
+import com.mycompany.labopr.utils.DataEvents;
+import com.mycompany.labopr.utils.Money;
 import java.io.*;
 import java.util.*;
 
 public class TransactionData {
     private static final String BALANCE_FILE = "balance.txt";
-    private static final String TRANSACTIONS_FILE = "transactions.txt";
     private static final String CATEGORIES_FILE = "categories.txt";
     
     // Default categories
@@ -18,78 +20,88 @@ public class TransactionData {
         "Paycheck", "Gift", "Interest", "Other"
     ));
     
-    // Get or set starting balance
-    public static Double getBalance() {
+    // Get or set starting balance (in centavos)
+    public static Long getBalance() {
         try (BufferedReader br = new BufferedReader(new FileReader(BALANCE_FILE))) {
             String line = br.readLine();
             if (line != null && !line.trim().isEmpty()) {
-                return Double.parseDouble(line.trim());
+                return Money.parse(line.trim());
             }
         } catch (IOException | NumberFormatException ignored) {
         }
         return null;
     }
     
-    public static void setBalance(double balance) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(BALANCE_FILE))) {
-            bw.write(String.valueOf(balance));
+    public static void setBalance(long balanceCents) {
+        try {
+            DurableFiles.replace(BALANCE_FILE, bw -> bw.write(Money.toPlainString(balanceCents)));
         } catch (IOException e) {
             e.printStackTrace();
+            return;
         }
+        TransactionRepository.setStartBalance(balanceCents);
+        DataEvents.publish(new DataChangeEvent.BalanceChanged(balanceCents));
     }
     
-    // Calculate current balance based on transactions
-    public static double calculateCurrentBalance() {
-        Double startBalance = getBalance();
-        if (startBalance == null) return 0.0;
-        
-        double current = startBalance;
-        List<Transaction> transactions = getAllTransactions();
-        
-        for (Transaction t : transactions) {
-            if (t.type.equals("Income")) {
-                current += t.amount;
-            } else {
-                current -= t.amount;
-            }
-        }
-        
-        return current;
+    // Current balance (in centavos): starting balance plus all transactions
+    public static long calculateCurrentBalance() {
+        return TransactionRepository.currentBalance();
     }
     
-    // Save a transaction
-    public static void saveTransaction(Transaction transaction) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(TRANSACTIONS_FILE, true))) {
-            bw.write(transaction.toFileString());
-            bw.newLine();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    // Balance (in centavos) at the end of a YYYY-MM-DD date, or 0 if the date is invalid
+    public static long getBalanceOn(String date) {
+        int day = TransactionColumns.parseDate(date);
+        return day == TransactionColumns.NO_DATE ? 0 : TransactionRepository.balanceOn(day);
+    }
+    
+    // Save a transaction; returns the saved record, or null if it couldn't be written
+    public static Transaction saveTransaction(Transaction transaction) {
+        return TransactionRepository.add(transaction) ? transaction : null;
+    }
+    
+    // Save several transactions with one write to disk
+    public static boolean saveTransactions(List<Transaction> transactions) {
+        return TransactionRepository.addAll(transactions);
     }
     
     // Get all transactions
     public static List<Transaction> getAllTransactions() {
-        List<Transaction> transactions = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(TRANSACTIONS_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                Transaction t = Transaction.fromFileString(line);
-                if (t != null) transactions.add(t);
-            }
-        } catch (IOException ignored) {
-        }
-        return transactions;
+        return TransactionRepository.getAll();
     }
     
     // Get transactions by type
     public static List<Transaction> getTransactionsByType(String type) {
-        List<Transaction> filtered = new ArrayList<>();
-        for (Transaction t : getAllTransactions()) {
-            if (t.type.equals(type)) {
-                filtered.add(t);
-            }
-        }
-        return filtered;
+        return TransactionRepository.getByType(type);
+    }
+    
+    // Get a read-only view of the transactions of a type without copying them
+    public static TransactionRows getTransactionRows(String type) {
+        return TransactionRepository.viewByType(type);
+    }
+    
+    // Get categories that have transactions of a type in a specific month (YYYY-MM)
+    public static Set<String> getCategoriesForMonth(String type, String month) {
+        return TransactionRepository.getCategoriesForMonth(type, month);
+    }
+    
+    // Get the total (in centavos) of a type for a specific month (YYYY-MM)
+    public static long getMonthlyTotal(String type, String month) {
+        return TransactionRepository.getMonthlyTotal(type, month);
+    }
+    
+    // Get the total (in centavos) of a type and category for a specific month (YYYY-MM)
+    public static long getMonthlyTotal(String type, String month, String category) {
+        return TransactionRepository.getMonthlyTotal(type, month, category);
+    }
+    
+    // Get per-category totals (in centavos) of a type for a specific month (YYYY-MM)
+    public static Map<String, Long> getMonthlyTotalsByCategory(String type, String month) {
+        return TransactionRepository.getMonthlyTotalsByCategory(type, month);
+    }
+    
+    // Move all transactions to another storage backend (SettingsData.STORAGE_TEXT or STORAGE_BINARY)
+    public static boolean setStorageBackend(String backend) {
+        return TransactionRepository.convertTo(backend);
     }
     
     // Category management
@@ -108,22 +120,23 @@ public class TransactionData {
     }
     
     public static void addCustomCategory(String type, String category) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(CATEGORIES_FILE, true))) {
-            bw.write(type + ":" + category);
-            bw.newLine();
+        try {
+            DurableFiles.append(CATEGORIES_FILE, bw -> {
+                bw.write(type + ":" + category);
+                bw.newLine();
+            });
         } catch (IOException e) {
             e.printStackTrace();
         }
+        CategoryDictionary.intern(category);
     }
     
     private static Set<String> getCustomCategories(String type) {
         Set<String> categories = new HashSet<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(CATEGORIES_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(":", 2);
-                if (parts.length == 2 && parts[0].equals(type)) {
-                    categories.add(parts[1]);
+        try (LineScanner line = new LineScanner(new FileReader(CATEGORIES_FILE), 2)) {
+            while (line.next(':')) {
+                if (line.fieldCount() == 2 && line.fieldEquals(0, type)) {
+                    categories.add(line.field(1));
                 }
             }
         } catch (IOException ignored) {
@@ -136,37 +149,43 @@ public class TransactionData {
         public String type; // "Expenses" or "Income"
         public String date;
         public String category;
-        public double amount;
+        public long amountCents; // centavos
         public String comment;
         
-        public Transaction(String type, String date, String category, double amount, String comment) {
+        public Transaction(String type, String date, String category, long amountCents, String comment) {
             this.type = type;
             this.date = date;
             this.category = category;
-            this.amount = amount;
+            this.amountCents = amountCents;
             this.comment = comment;
         }
         
         public String toFileString() {
-            return type + "|" + date + "|" + category + "|" + amount + "|" + comment;
+            StringBuilder sb = new StringBuilder(64);
+            sb.append(type).append('|').append(date).append('|').append(category).append('|');
+            Money.appendPlain(sb, amountCents);
+            return sb.append('|').append(comment).toString();
         }
         
         public static Transaction fromFileString(String line) {
-            String[] parts = line.split("\\|", 5);
-            if (parts.length == 5) {
-                try {
-                    return new Transaction(
-                        parts[0],
-                        parts[1],
-                        parts[2],
-                        Double.parseDouble(parts[3]),
-                        parts[4]
-                    );
-                } catch (NumberFormatException e) {
-                    return null;
-                }
+            // type|date|category|amount|comment, the comment may itself contain '|'
+            int typeEnd = line.indexOf('|');
+            int dateEnd = typeEnd < 0 ? -1 : line.indexOf('|', typeEnd + 1);
+            int categoryEnd = dateEnd < 0 ? -1 : line.indexOf('|', dateEnd + 1);
+            int amountEnd = categoryEnd < 0 ? -1 : line.indexOf('|', categoryEnd + 1);
+            if (amountEnd < 0) return null;
+            
+            try {
+                return new Transaction(
+                    line.substring(0, typeEnd),
+                    line.substring(typeEnd + 1, dateEnd),
+                    line.substring(dateEnd + 1, categoryEnd),
+                    Money.parse(line, categoryEnd + 1, amountEnd),
+                    line.substring(amountEnd + 1)
+                );
+            } catch (NumberFormatException e) {
+                return null;
             }
-            return null;
         }
     }
 }
\ No newline at end of file
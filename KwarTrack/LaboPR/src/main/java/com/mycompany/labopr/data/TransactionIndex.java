@@ -0,0 +1,21 @@
+package com.mycompany.labopr.data;
+
+// Secondary index over the repository rows: row ids per type, in file order.
+// Per-month sums come from the MonthlyRollup instead of row lists.
+class TransactionIndex {
+    private final IntList[] byType = { new IntList(), new IntList() };
+
+    // Register a newly stored row
+    void add(int row, byte type) {
+        byType[type].add(row);
+    }
+
+    IntList rows(byte type) {
+        return byType[type];
+    }
+
+    void clear() {
+        byType[0] = new IntList();
+        byType[1] = new IntList();
+    }
+}
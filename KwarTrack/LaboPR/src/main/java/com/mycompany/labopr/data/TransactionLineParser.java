@@ -0,0 +1,101 @@
+package com.mycompany.labopr.data;
+
+import com.mycompany.labopr.utils.Money;
+import java.util.Arrays;
+
+// Parses transactions.txt lines straight out of a LineScanner buffer into
+// TransactionColumns. Type, date and amount are decoded in place and category
+// names are looked up through a small char-keyed cache, so a line only
+// allocates when it has a comment, a malformed date or a category the
+// parser hasn't met yet.
+class TransactionLineParser {
+    static final int FIELDS = 5;
+
+    // Open-addressing cache from category text to dictionary id
+    private char[][] keys = new char[64][];
+    private int[] ids = new int[64];
+    private int cached = 0;
+
+    // Parse the scanner's current line into the columns.
+    // Returns the new row, or -1 if the line isn't a valid Expenses/Income transaction.
+    int parse(LineScanner line, TransactionColumns into) {
+        if (line.fieldCount() != FIELDS) return -1;
+
+        byte type;
+        if (line.fieldEquals(0, "Expenses")) {
+            type = TransactionColumns.EXPENSES;
+        } else if (line.fieldEquals(0, "Income")) {
+            type = TransactionColumns.INCOME;
+        } else {
+            return -1;
+        }
+
+        long amount;
+        try {
+            amount = Money.parse(line.chars(), line.start(3), line.end(3));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+
+        char[] buffer = line.buffer();
+        int date = TransactionColumns.parseDate(buffer, line.start(1), line.end(1));
+        int category = categoryId(buffer, line.start(2), line.end(2));
+        String comment = line.length(4) == 0 ? "" : line.field(4);
+
+        int row = into.add(type, date, category, amount, comment);
+        if (date == TransactionColumns.NO_DATE) {
+            into.setRawDate(row, line.field(1));
+        }
+        return row;
+    }
+
+    // Dictionary id of the category text in buffer[start, end)
+    private int categoryId(char[] buffer, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+
+        int mask = keys.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != null) {
+            if (Arrays.equals(keys[slot], 0, keys[slot].length, buffer, start, end)) {
+                return ids[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // First time this parser sees the name
+        char[] key = Arrays.copyOfRange(buffer, start, end);
+        int id = CategoryDictionary.intern(new String(key));
+        keys[slot] = key;
+        ids[slot] = id;
+        if (++cached * 2 > keys.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        char[][] oldKeys = keys;
+        int[] oldIds = ids;
+        keys = new char[oldKeys.length * 2][];
+        ids = new int[oldKeys.length * 2];
+
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            char[] key = oldKeys[i];
+            if (key == null) continue;
+            int hash = 0;
+            for (char c : key) {
+                hash = 31 * hash + c;
+            }
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            ids[slot] = oldIds[i];
+        }
+    }
+}
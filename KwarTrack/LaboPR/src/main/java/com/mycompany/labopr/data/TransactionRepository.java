@@ -0,0 +1,398 @@
+package com.mycompany.labopr.data;
+
+import com.mycompany.labopr.utils.DataChangeEvent;
+import com.mycompany.labopr.utils.DataEvents;
+import java.io.*;
+import java.util.*;
+import java.util.function.Function;
+
+// Process-wide in-memory copy of the saved transactions.
+// The file is parsed once on first access; saves go to both memory and disk.
+// Rows are kept in primitive columns and only turned into Transaction objects
+// when a caller asks for them. Which on-disk format is used comes from the
+// storage_backend setting, and saves reach it through a group-commit
+// TransactionWriter. The current balance is kept up to date as rows
+// are stored, along with per-day sums per type and per (type, category) for
+// date-range totals and balance-on-a-date queries.
+// Saved rows join the in-memory copy as soon as they are queued for the
+// writer, before their write is committed, so reads such as exports,
+// analytics and panel loads can briefly see rows whose write later fails.
+// If that happens the copy is dropped, the file is read again on next
+// access, and a DataReset tells open views to reload.
+class TransactionRepository {
+    private static final TransactionColumns columns = new TransactionColumns();
+    private static final TransactionIndex index = new TransactionIndex();
+    private static final MonthlyRollup rollup = new MonthlyRollup();
+    private static final DailyTotals[] dailyByType = { new DailyTotals(), new DailyTotals() };
+    private static final Map<Long, DailyTotals> dailyByTypeCategory = new HashMap<>();
+    private static Long startBalance;
+    private static long net = 0;
+    private static TransactionStorage storage;
+    private static TransactionWriter writer;
+    private static boolean loaded = false;
+
+    // Bumped whenever the cached rows are dropped, so long scans can notice
+    private static int generation = 0;
+
+    // Held for the whole of a backend conversion, so two can't interleave
+    private static final Object conversionLock = new Object();
+
+    // Rows visited per lock acquisition during a scan
+    private static final int SCAN_BLOCK = 4096;
+
+    private TransactionRepository() {
+    }
+
+    // Load the file into memory if it hasn't been loaded yet
+    private static void ensureLoaded() {
+        if (loaded) return;
+
+        storage = storageFor(SettingsData.getSetting(SettingsData.STORAGE_BACKEND));
+        startBalance = TransactionData.getBalance();
+        try {
+            storage.load(columns);
+            for (int row = 0; row < columns.size(); row++) {
+                indexRow(row);
+            }
+        } catch (IOException e) {
+            // start empty rather than from part of the file
+            e.printStackTrace();
+            clearRows();
+        } catch (RuntimeException | Error e) {
+            // leave nothing behind for the next attempt to load on top of
+            clearRows();
+            throw e;
+        }
+        writer = new TransactionWriter(storage);
+        loaded = true;
+    }
+
+    private static TransactionStorage storageFor(String backend) {
+        return SettingsData.STORAGE_BINARY.equals(backend) ? new BinaryTransactionLog() : new TextTransactionStorage();
+    }
+
+    // Append a transaction to disk and memory; false if it couldn't be written
+    static boolean add(TransactionData.Transaction transaction) {
+        return addAll(Collections.singletonList(transaction));
+    }
+
+    // Append a batch of transactions. The rows are queued for the writer and
+    // added to memory under the lock, which keeps memory in the order of the
+    // file; the wait for the write happens outside it, so saves from other
+    // threads can join the same write. A batch holding a transaction that
+    // can't be stored is refused as a whole, before anything is queued.
+    static boolean addAll(List<TransactionData.Transaction> transactions) {
+        for (TransactionData.Transaction t : transactions) {
+            if (!isStorable(t)) return false;
+            if (t.comment == null) t.comment = "";
+        }
+
+        TransactionWriter target;
+        long sequence;
+        int saveGeneration;
+        Map<List<String>, long[]> added = new LinkedHashMap<>();
+        synchronized (TransactionRepository.class) {
+            ensureLoaded();
+            target = writer;
+            saveGeneration = generation;
+            sequence = target.submit(transactions);
+            if (sequence < 0) return false;
+
+            for (TransactionData.Transaction t : transactions) {
+                indexRow(columns.add(t)); // types were checked above
+
+                String month = t.date.length() >= 7 ? t.date.substring(0, 7) : t.date;
+                long[] group = added.computeIfAbsent(Arrays.asList(t.type, month, t.category), k -> new long[2]);
+                group[0]++;
+                group[1] += t.amountCents;
+            }
+        }
+
+        if (!target.await(sequence)) {
+            // memory ran ahead of the file; read the file again
+            boolean dropped = false;
+            synchronized (TransactionRepository.class) {
+                if (generation == saveGeneration) {
+                    invalidate();
+                    dropped = true;
+                }
+            }
+            // Open row views point at the dropped rows and would show them blank
+            if (dropped) DataEvents.publish(new DataChangeEvent.DataReset());
+            return false;
+        }
+
+        // Tell the panels what was saved, one event per type, month and category
+        for (Map.Entry<List<String>, long[]> entry : added.entrySet()) {
+            List<String> key = entry.getKey();
+            long[] group = entry.getValue();
+            DataEvents.publish(new DataChangeEvent.TransactionAdded(
+                key.get(0), key.get(1), key.get(2), (int) group[0], group[1]));
+        }
+        return true;
+    }
+
+    // True if a transaction has a known type and a category and date that
+    // fit in a record; a missing comment is allowed and saved as empty
+    private static boolean isStorable(TransactionData.Transaction t) {
+        if (t == null || t.type == null || t.date == null || t.category == null) return false;
+        if (TransactionColumns.typeCode(t.type) < 0 || t.category.isEmpty()) return false;
+        return !containsSeparator(t.category) && !containsSeparator(t.date);
+    }
+
+    private static boolean containsSeparator(String field) {
+        return field.indexOf('|') >= 0 || field.indexOf('\r') >= 0 || field.indexOf('\n') >= 0;
+    }
+
+    // Add a stored row to the indexes, the monthly rollup and the balance
+    private static void indexRow(int row) {
+        byte type = columns.type(row);
+        int category = columns.category(row);
+        int month = columns.month(row);
+        long amount = columns.amount(row);
+        index.add(row, type);
+        if (month >= 0) {
+            rollup.add(type, month, category, amount);
+        }
+
+        net += type == TransactionColumns.INCOME ? amount : -amount;
+        int date = columns.date(row);
+        if (date != TransactionColumns.NO_DATE) {
+            dailyByType[type].add(date, amount);
+            dailyByTypeCategory.computeIfAbsent(dailyKey(type, category), k -> new DailyTotals()).add(date, amount);
+        }
+    }
+
+    private static long dailyKey(byte type, int category) {
+        return ((long) category << 1) | type;
+    }
+
+    // Copy every transaction into another backend and switch to it. The copy
+    // is taken a block of rows at a time, like a scan, and written out without
+    // the lock, so readers such as the transactions table aren't held up for
+    // the whole rewrite. Rows saved in the meantime are appended to the new
+    // backend under the lock, just before the switch.
+    static boolean convertTo(String backend) {
+        synchronized (conversionLock) {
+            TransactionStorage target = storageFor(backend);
+            int convertGeneration;
+            synchronized (TransactionRepository.class) {
+                ensureLoaded();
+                if (target.getClass() == storage.getClass()) {
+                    SettingsData.setSetting(SettingsData.STORAGE_BACKEND, backend);
+                    return true;
+                }
+                convertGeneration = generation;
+            }
+
+            TransactionColumns copy = new TransactionColumns();
+            try {
+                scan((from, row) -> {
+                    int copied = copy.add(from.type(row), from.date(row), from.category(row),
+                            from.amount(row), from.comment(row));
+                    if (from.date(row) == TransactionColumns.NO_DATE) {
+                        copy.setRawDate(copied, from.dateString(row));
+                    }
+                });
+                target.rewrite(copy);
+
+                synchronized (TransactionRepository.class) {
+                    if (generation != convertGeneration) return false; // reset meanwhile
+                    if (columns.size() > copy.size()) {
+                        List<TransactionData.Transaction> late = new ArrayList<>();
+                        for (int row = copy.size(); row < columns.size(); row++) {
+                            late.add(columns.toTransaction(row));
+                        }
+                        target.append(late);
+                    }
+                    target.close();
+                    SettingsData.setSetting(SettingsData.STORAGE_BACKEND, backend);
+                    invalidate();
+                }
+                return true;
+            } catch (IOException e) {
+                e.printStackTrace();
+                try {
+                    target.close();
+                } catch (IOException ignored) {
+                }
+                return false;
+            }
+        }
+    }
+
+    // Read-only snapshot of all transactions in file order
+    static synchronized List<TransactionData.Transaction> getAll() {
+        ensureLoaded();
+        List<TransactionData.Transaction> result = new ArrayList<>(columns.size());
+        for (int row = 0; row < columns.size(); row++) {
+            result.add(columns.toTransaction(row));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    // Starting balance plus income minus expenses over all transactions
+    static synchronized long currentBalance() {
+        ensureLoaded();
+        return startBalance == null ? 0 : startBalance + net;
+    }
+
+    // Balance at the end of an epoch day. Rows whose date couldn't be parsed
+    // count toward the current balance but not toward any day.
+    static synchronized long balanceOn(int day) {
+        ensureLoaded();
+        if (startBalance == null) return 0;
+        return startBalance
+            + dailyByType[TransactionColumns.INCOME].sumThrough(day)
+            - dailyByType[TransactionColumns.EXPENSES].sumThrough(day);
+    }
+
+    // Sum of one type between two epoch days, both included; a null category means all of them
+    static synchronized long rangeTotal(String type, String category, int from, int to) {
+        ensureLoaded();
+        byte code = TransactionColumns.typeCode(type);
+        if (code < 0) return 0;
+        if (category == null) return dailyByType[code].sumBetween(from, to);
+
+        int categoryId = CategoryDictionary.idOf(category);
+        DailyTotals totals = categoryId < 0 ? null : dailyByTypeCategory.get(dailyKey(code, categoryId));
+        return totals == null ? 0 : totals.sumBetween(from, to);
+    }
+
+    // The starting balance was saved; the running sums don't depend on it
+    static synchronized void setStartBalance(long balance) {
+        startBalance = balance;
+    }
+
+    // Transactions of one type in file order
+    static synchronized List<TransactionData.Transaction> getByType(String type) {
+        ensureLoaded();
+        byte code = TransactionColumns.typeCode(type);
+        return code < 0 ? new ArrayList<>() : collect(index.rows(code));
+    }
+
+    // Copy-free view of the transactions of one type
+    static synchronized TransactionRows viewByType(String type) {
+        ensureLoaded();
+        byte code = TransactionColumns.typeCode(type);
+        IntList rows = code < 0 ? IntList.EMPTY : index.rows(code);
+        return new TransactionRows(rows, rows.size(), generation);
+    }
+
+    // Current length of an index row list for a view, or -1 if the rows were reset since
+    static synchronized int rowCount(int viewGeneration, IntList rows) {
+        return viewGeneration == generation ? rows.size() : -1;
+    }
+
+    // Reads one field of a row
+    interface RowReader<T> {
+        T read(TransactionColumns columns, int row);
+    }
+
+    // Read a row for a view created in the given generation, or null if the rows were reset since
+    static synchronized <T> T readRow(int viewGeneration, IntList rows, int index, RowReader<T> reader) {
+        if (viewGeneration != generation) return null;
+        return reader.read(columns, rows.get(index));
+    }
+
+    // Categories used by transactions of one type in a YYYY-MM month
+    static synchronized Set<String> getCategoriesForMonth(String type, String month) {
+        ensureLoaded();
+        byte code = TransactionColumns.typeCode(type);
+        int monthCode = TransactionColumns.monthCode(month);
+        if (code < 0 || monthCode < 0) return new HashSet<>();
+        return rollup.categories(code, monthCode);
+    }
+
+    // Sum of one type in a YYYY-MM month
+    static synchronized long getMonthlyTotal(String type, String month) {
+        ensureLoaded();
+        byte code = TransactionColumns.typeCode(type);
+        int monthCode = TransactionColumns.monthCode(month);
+        if (code < 0 || monthCode < 0) return 0;
+        return rollup.total(code, monthCode);
+    }
+
+    // Sum of one type and category in a YYYY-MM month
+    static synchronized long getMonthlyTotal(String type, String month, String category) {
+        ensureLoaded();
+        byte code = TransactionColumns.typeCode(type);
+        int monthCode = TransactionColumns.monthCode(month);
+        if (code < 0 || monthCode < 0) return 0;
+        return rollup.total(code, monthCode, CategoryDictionary.idOf(category));
+    }
+
+    // Per-category sums of one type in a YYYY-MM month
+    static synchronized Map<String, Long> getMonthlyTotalsByCategory(String type, String month) {
+        ensureLoaded();
+        byte code = TransactionColumns.typeCode(type);
+        int monthCode = TransactionColumns.monthCode(month);
+        if (code < 0 || monthCode < 0) return new HashMap<>();
+        return rollup.byCategory(code, monthCode);
+    }
+
+    // Run several rollup reads under one lock so they see the same data
+    static synchronized <T> T readRollup(Function<MonthlyRollup, T> reader) {
+        ensureLoaded();
+        return reader.apply(rollup);
+    }
+
+    // Receives rows one at a time during a scan
+    interface RowVisitor {
+        void visit(TransactionColumns columns, int row) throws IOException;
+    }
+
+    // Visit every row in file order without materializing Transactions.
+    // The lock is taken per block of rows so a long scan doesn't hold up other readers.
+    static void scan(RowVisitor visitor) throws IOException {
+        int scanGeneration;
+        synchronized (TransactionRepository.class) {
+            ensureLoaded();
+            scanGeneration = generation;
+        }
+        for (int start = 0; ; start += SCAN_BLOCK) {
+            synchronized (TransactionRepository.class) {
+                if (generation != scanGeneration) {
+                    throw new IOException("Transactions were reset during the scan");
+                }
+                int end = Math.min(start + SCAN_BLOCK, columns.size());
+                if (start >= end) return;
+                for (int row = start; row < end; row++) {
+                    visitor.visit(columns, row);
+                }
+            }
+        }
+    }
+
+    private static List<TransactionData.Transaction> collect(IntList rows) {
+        List<TransactionData.Transaction> result = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            result.add(columns.toTransaction(rows.get(i)));
+        }
+        return result;
+    }
+
+    // Drop the cached copy so the next access re-reads the file.
+    // Saves still queued are written out first.
+    static synchronized void invalidate() {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        clearRows();
+        startBalance = null;
+        loaded = false;
+        generation++;
+    }
+
+    // Empty the rows and everything derived from them
+    private static void clearRows() {
+        columns.clear();
+        index.clear();
+        rollup.clear();
+        dailyByType[0].clear();
+        dailyByType[1].clear();
+        dailyByTypeCategory.clear();
+        net = 0;
+    }
+}
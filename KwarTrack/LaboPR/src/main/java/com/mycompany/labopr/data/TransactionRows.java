@@ -0,0 +1,53 @@
+package com.mycompany.labopr.data;
+
+// Read-only view of the stored transactions of one type, in save order.
+// Nothing is copied: each accessor reads the row straight from the
+// repository's columns, so a table can wrap it and only format the rows it
+// actually shows. The view keeps the row count it was created with until
+// refresh() picks up rows saved since; if the data is reset afterwards its
+// accessors return empty values.
+public class TransactionRows {
+    private final IntList rows;
+    private int size;
+    private final int generation;
+
+    TransactionRows(IntList rows, int size, int generation) {
+        this.rows = rows;
+        this.size = size;
+        this.generation = generation;
+    }
+
+    public int size() {
+        return size;
+    }
+    
+    // Take in rows of this type saved since the view was created.
+    // Returns how many were added, or -1 if the data was reset and the view is stale.
+    public int refresh() {
+        int current = TransactionRepository.rowCount(generation, rows);
+        if (current < 0) return -1;
+        int added = current - size;
+        size = current;
+        return added;
+    }
+
+    public String getDate(int index) {
+        String date = TransactionRepository.readRow(generation, rows, index, TransactionColumns::dateString);
+        return date == null ? "" : date;
+    }
+
+    public String getCategory(int index) {
+        Integer category = TransactionRepository.readRow(generation, rows, index, TransactionColumns::category);
+        return category == null ? "" : CategoryDictionary.nameOf(category);
+    }
+
+    public long getAmountCents(int index) {
+        Long amount = TransactionRepository.readRow(generation, rows, index, TransactionColumns::amount);
+        return amount == null ? 0 : amount;
+    }
+
+    public String getComment(int index) {
+        String comment = TransactionRepository.readRow(generation, rows, index, TransactionColumns::comment);
+        return comment == null ? "" : comment;
+    }
+}
@@ -0,0 +1,24 @@
+package com.mycompany.labopr.data;
+
+import java.io.IOException;
+import java.util.List;
+
+// On-disk format behind the TransactionRepository. The repository keeps every
+// row in memory, so a backend only has to load rows, append new ones and
+// write out a full copy when the data is moved to another backend.
+// Appends all come from one TransactionWriter thread.
+interface TransactionStorage {
+
+    // Append every stored row to the (empty) columns, in save order
+    void load(TransactionColumns into) throws IOException;
+
+    // Persist newly saved transactions in one write
+    void append(List<TransactionData.Transaction> transactions) throws IOException;
+
+    // Replace whatever is on disk with the given rows
+    void rewrite(TransactionColumns from) throws IOException;
+
+    // Release anything held open between appends
+    default void close() throws IOException {
+    }
+}
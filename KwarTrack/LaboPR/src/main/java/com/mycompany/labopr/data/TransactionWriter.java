@@ -0,0 +1,150 @@
+package com.mycompany.labopr.data;
+
+import java.io.IOException;
+import java.util.*;
+
+// Group-commit writer in front of a TransactionStorage. Each save is queued
+// under the next sequence number, and one long-lived writer thread takes
+// everything queued so far and appends it with a single write (and, when
+// every write is synced, a single fsync). Saves that arrive while a write is
+// in progress are coalesced into the next one, so a burst of saves costs a
+// handful of writes instead of one each. The storage file stays the log:
+// a save counts as written once its sequence number has been committed.
+class TransactionWriter {
+    private final TransactionStorage storage;
+    private final Thread thread;
+
+    private List<TransactionData.Transaction> pending = new ArrayList<>();
+    private long submitted = 0; // last sequence number handed out
+    private long committed = 0; // every save up to here has been written or failed
+    private final Set<Long> failed = new HashSet<>();
+    private boolean closing = false;
+    private boolean broken = false; // the storage can no longer be written to
+
+    TransactionWriter(TransactionStorage storage) {
+        this.storage = storage;
+        this.thread = new Thread(this::run, "transaction-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // Queue transactions for the next write; returns their sequence number, or
+    // -1 once closed or once the writer thread has stopped
+    synchronized long submit(List<TransactionData.Transaction> transactions) {
+        if (closing || broken || !thread.isAlive()) return -1;
+        pending.addAll(transactions);
+        submitted++;
+        notifyAll();
+        return submitted;
+    }
+
+    // Wait until a save has been written; false if its write failed
+    synchronized boolean await(long sequence) {
+        if (sequence < 0) return false;
+
+        boolean interrupted = false;
+        while (committed < sequence) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true; // the write goes ahead either way
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        return !failed.remove(sequence);
+    }
+
+    private void run() {
+        try {
+            writeBatches();
+        } finally {
+            // However the thread ends, fail whatever is still queued so no
+            // await() is left waiting and later saves are refused
+            synchronized (this) {
+                broken = true;
+                for (long sequence = committed + 1; sequence <= submitted; sequence++) {
+                    failed.add(sequence);
+                }
+                committed = submitted;
+                pending = new ArrayList<>();
+                notifyAll();
+            }
+        }
+    }
+
+    private void writeBatches() {
+        while (true) {
+            List<TransactionData.Transaction> batch;
+            long first;
+            long last;
+            boolean usable;
+            synchronized (this) {
+                while (committed == submitted && !closing) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (committed == submitted) return; // closing with nothing left to write
+                batch = pending;
+                pending = new ArrayList<>();
+                first = committed + 1;
+                last = submitted;
+                usable = !broken;
+            }
+
+            // One bad batch fails its own saves and the writer moves on; after
+            // an Error the storage may be half written, so nothing more goes to it
+            boolean written = usable;
+            if (usable && !batch.isEmpty()) {
+                try {
+                    storage.append(batch);
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                    written = false;
+                } catch (Error e) {
+                    e.printStackTrace();
+                    written = false;
+                    synchronized (this) {
+                        broken = true;
+                    }
+                }
+            }
+
+            synchronized (this) {
+                if (!written) {
+                    for (long sequence = first; sequence <= last; sequence++) {
+                        failed.add(sequence);
+                    }
+                }
+                committed = last;
+                notifyAll();
+            }
+        }
+    }
+
+    // Write whatever is still queued, stop the writer thread and close the storage
+    void close() {
+        synchronized (this) {
+            closing = true;
+            notifyAll();
+        }
+
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+
+        try {
+            storage.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
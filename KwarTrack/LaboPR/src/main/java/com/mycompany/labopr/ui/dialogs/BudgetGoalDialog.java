@@ -4,6 +4,7 @@ import com.mycompany.labopr.data.BudgetData;
 import com.mycompany.labopr.data.TransactionData;
 import com.mycompany.labopr.ui.factories.ButtonFactory;
 import com.mycompany.labopr.ui.theme.UITheme;
+import com.mycompany.labopr.utils.Money;
 import javax.swing.*;
 import java.awt.*;
 import java.util.*;
@@ -23,7 +24,7 @@ public class BudgetGoalDialog extends JDialog {
     }
     
     // Constructor for editing specific category
-    public BudgetGoalDialog(JFrame parent, String month, String category, double currentGoal) {
+    public BudgetGoalDialog(JFrame parent, String month, String category, long currentGoal) {
         this(parent, month, category, currentGoal, false);
     }
     
@@ -32,7 +33,7 @@ public class BudgetGoalDialog extends JDialog {
         this(parent, month, null, 0, setAllMode);
     }
     
-    private BudgetGoalDialog(JFrame parent, String month, String category, double currentGoal, boolean setAllMode) {
+    private BudgetGoalDialog(JFrame parent, String month, String category, long currentGoal, boolean setAllMode) {
         super(parent, setAllMode ? "Set All Budget Goals" : (category == null ? "Add Budget Goal" : "Edit Budget Goal"), true);
         this.selectedMonth = month;
         this.isSetAllMode = setAllMode;
@@ -55,7 +56,7 @@ public class BudgetGoalDialog extends JDialog {
     }
     
     // Initialize components for single goal mode
-    private void initSingleGoalComponents(String preselectedCategory, double currentGoal) {
+    private void initSingleGoalComponents(String preselectedCategory, long currentGoal) {
         JPanel mainPanel = new JPanel();
         mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.Y_AXIS));
         mainPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
@@ -89,7 +90,7 @@ public class BudgetGoalDialog extends JDialog {
         // Goal field
         goalField = new JTextField(15);
         if (currentGoal > 0) {
-            goalField.setText(String.valueOf(currentGoal));
+            goalField.setText(Money.toPlainString(currentGoal));
         }
         mainPanel.add(createFieldPanel("Goal Amount (₱):", goalField));
         
@@ -140,7 +141,7 @@ public class BudgetGoalDialog extends JDialog {
         Collections.sort(sortedCategories);
         
         // Get existing goals for this month
-        Map<String, Double> existingGoals = BudgetData.getBudgetGoalsForMonth(selectedMonth);
+        Map<String, Long> existingGoals = BudgetData.getBudgetGoalsForMonth(selectedMonth);
         
         for (String category : sortedCategories) {
             JPanel rowPanel = new JPanel(new BorderLayout(10, 0));
@@ -157,7 +158,7 @@ public class BudgetGoalDialog extends JDialog {
             
             // Pre-fill existing goal if available
             if (existingGoals.containsKey(category)) {
-                goalField.setText(String.valueOf(existingGoals.get(category)));
+                goalField.setText(Money.toPlainString(existingGoals.get(category)));
             }
             
             categoryFields.put(category, goalField);
@@ -240,9 +241,9 @@ public class BudgetGoalDialog extends JDialog {
             return;
         }
         
-        double goal;
+        long goal;
         try {
-            goal = Double.parseDouble(goalText);
+            goal = Money.parse(goalText);
             if (goal < 0) {
                 JOptionPane.showMessageDialog(this, "Goal must be non-negative.", "Error", JOptionPane.ERROR_MESSAGE);
                 return;
@@ -269,7 +270,7 @@ public class BudgetGoalDialog extends JDialog {
             
             if (!goalText.isEmpty()) {
                 try {
-                    double goal = Double.parseDouble(goalText);
+                    long goal = Money.parse(goalText);
                     if (goal >= 0) {
                         goals.add(new BudgetData.BudgetGoal(category, selectedMonth, goal));
                     }
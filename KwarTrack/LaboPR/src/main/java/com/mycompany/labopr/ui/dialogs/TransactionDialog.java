@@ -3,6 +3,7 @@ package com.mycompany.labopr.ui.dialogs;
 import com.mycompany.labopr.data.TransactionData;
 import com.mycompany.labopr.ui.factories.ButtonFactory;
 import com.mycompany.labopr.ui.theme.UITheme;
+import com.mycompany.labopr.utils.Money;
 import javax.swing.*;
 import java.awt.*;
 import java.text.SimpleDateFormat;
@@ -156,9 +157,9 @@ public class TransactionDialog extends JDialog {
             return;
         }
         
-        double amount;
+        long amount;
         try {
-            amount = Double.parseDouble(amountText);
+            amount = Money.parse(amountText);
             if (amount <= 0) {
                 JOptionPane.showMessageDialog(this, "Amount must be positive.", "Error", JOptionPane.ERROR_MESSAGE);
                 return;
@@ -188,7 +189,10 @@ public class TransactionDialog extends JDialog {
         TransactionData.Transaction transaction = new TransactionData.Transaction(
             transactionType, date, category, amount, comment
         );
-        TransactionData.saveTransaction(transaction);
+        if (TransactionData.saveTransaction(transaction) == null) {
+            JOptionPane.showMessageDialog(this, "Failed to save transaction.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
         
         confirmed = true;
         dispose();
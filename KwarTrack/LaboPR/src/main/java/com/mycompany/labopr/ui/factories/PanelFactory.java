@@ -31,4 +31,11 @@ public class PanelFactory {
         label.setFont(new Font(UITheme.FONT_FAMILY, bold ? Font.BOLD : Font.PLAIN, fontSize));
         return label;
     }
+
+    // Placeholder shown in a panel while its data loads in the background, or if that fails
+    public static JLabel createLoadingLabel(String text) {
+        JLabel label = createLabel(text, UITheme.FONT_MEDIUM, false);
+        label.setFont(label.getFont().deriveFont(Font.ITALIC));
+        return label;
+    }
 }
\ No newline at end of file
@@ -2,20 +2,31 @@ package com.mycompany.labopr.ui.panels;
 
 import com.mycompany.labopr.data.AnalyticsData;
 import com.mycompany.labopr.ui.factories.ButtonFactory;
+import com.mycompany.labopr.ui.factories.PanelFactory;
 import com.mycompany.labopr.ui.theme.UITheme;
+import com.mycompany.labopr.utils.DataChangeEvent;
+import com.mycompany.labopr.utils.DataChangeListener;
+import com.mycompany.labopr.utils.DataEvents;
+import com.mycompany.labopr.utils.Money;
+import com.mycompany.labopr.utils.PanelLoader;
 import javax.swing.*;
 import java.awt.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.List;
 
-public class AnalyticsPanel extends JPanel implements UITheme.ThemeChangeListener {
+public class AnalyticsPanel extends JPanel implements UITheme.ThemeChangeListener, DataChangeListener {
+    private static final int TREND_MONTHS = 3;
+    
     private JFrame parentFrame;
     private JComboBox<String> monthSelector;
     private String currentMonth;
     private JPanel chartsPanel;
     private JPanel metricsPanel;
     private JPanel topCategoriesPanel;
+    private JPanel contentHolder;
+    private CardLayout contentCards;
+    private PanelLoader<AnalyticsData.Snapshot> loader;
     
     public AnalyticsPanel(JFrame parent) {
         this.parentFrame = parent;
@@ -28,7 +39,9 @@ public class AnalyticsPanel extends JPanel implements UITheme.ThemeChangeListene
         UITheme.addThemeChangeListener(this);
         
         initComponents();
+        loader = new PanelLoader<>(this::showLoading, this::showAnalytics, this::showLoadFailed);
         loadAnalytics();
+        DataEvents.subscribe(this);
     }
     
     private void initComponents() {
@@ -99,7 +112,15 @@ public class AnalyticsPanel extends JPanel implements UITheme.ThemeChangeListene
         scrollPane.getViewport().setBackground(UITheme.PRIMARY_GREEN);
         scrollPane.setBorder(null);
         
-        add(scrollPane, BorderLayout.CENTER);
+        // Analytics and loading placeholder share the center
+        contentCards = new CardLayout();
+        contentHolder = new JPanel(contentCards);
+        contentHolder.setOpaque(false);
+        contentHolder.add(scrollPane, "content");
+        contentHolder.add(PanelFactory.createLoadingLabel("Loading analytics..."), "loading");
+        contentHolder.add(PanelFactory.createLoadingLabel("Couldn't load analytics."), "failed");
+        
+        add(contentHolder, BorderLayout.CENTER);
         
         // Bottom panel with export button
         JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -129,60 +150,73 @@ public class AnalyticsPanel extends JPanel implements UITheme.ThemeChangeListene
         return months.toArray(new String[0]);
     }
     
+    // Take the month's snapshot in the background
     private void loadAnalytics() {
+        String month = currentMonth;
+        
+        // Current month and 2 previous months for the trend
+        loader.load(() -> AnalyticsData.snapshot(month, TREND_MONTHS));
+    }
+    
+    // Reload only when a change touches a month shown in the metrics or the trend
+    @Override
+    public void onDataChanged(List<DataChangeEvent> events) {
+        List<String> shownMonths = AnalyticsData.getTrendMonths(currentMonth, TREND_MONTHS);
+        for (DataChangeEvent event : events) {
+            boolean affected = event instanceof DataChangeEvent.DataReset
+                || (event instanceof DataChangeEvent.TransactionAdded
+                    && shownMonths.contains(((DataChangeEvent.TransactionAdded) event).month));
+            if (affected) {
+                loadAnalytics();
+                return;
+            }
+        }
+    }
+    
+    private void showLoading() {
+        contentCards.show(contentHolder, "loading");
+    }
+    
+    private void showLoadFailed() {
+        contentCards.show(contentHolder, "failed");
+    }
+    
+    private void showAnalytics(AnalyticsData.Snapshot snapshot) {
         // Clear existing content
         chartsPanel.removeAll();
         metricsPanel.removeAll();
         topCategoriesPanel.removeAll();
         
         // Load charts
-        loadCharts();
+        loadCharts(snapshot);
         
         // Load metrics
-        loadMetrics();
+        loadMetrics(snapshot);
         
         // Load top categories
-        loadTopCategories();
+        loadTopCategories(snapshot);
         
         // Refresh display
+        contentCards.show(contentHolder, "content");
         revalidate();
         repaint();
     }
     
-    private void loadCharts() {
+    private void loadCharts(AnalyticsData.Snapshot snapshot) {
         // Spending by Category (Pie Chart)
-        Map<String, Double> categorySpending = AnalyticsData.getSpendingByCategory(currentMonth);
-        ChartPanel pieChart = new ChartPanel("Spending by Category", categorySpending);
+        ChartPanel pieChart = new ChartPanel("Spending by Category", snapshot.spendingByCategory);
         chartsPanel.add(pieChart);
         
-        // Income vs Expenses Trend (Bar Chart) - show current month and 2 previous months
-        Calendar cal = Calendar.getInstance();
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM");
-        List<String> trendMonths = new ArrayList<>();
-        
-        try {
-            cal.setTime(sdf.parse(currentMonth));
-        } catch (Exception e) {
-            cal = Calendar.getInstance();
-        }
-        
-        cal.add(Calendar.MONTH, -2);
-        for (int i = 0; i < 3; i++) {
-            trendMonths.add(sdf.format(cal.getTime()));
-            cal.add(Calendar.MONTH, 1);
-        }
-        
-        Map<String, AnalyticsData.MonthlyData> trendData = 
-            AnalyticsData.getIncomeExpensesTrend(trendMonths);
-        ChartPanel barChart = new ChartPanel("Income vs Expenses Trend", trendData, true);
+        // Income vs Expenses Trend (Bar Chart)
+        ChartPanel barChart = new ChartPanel("Income vs Expenses Trend", snapshot.trend, true);
         chartsPanel.add(barChart);
     }
     
-    private void loadMetrics() {
-        double totalIncome = AnalyticsData.getTotalIncome(currentMonth);
-        double totalExpenses = AnalyticsData.getTotalExpenses(currentMonth);
-        double netSavings = AnalyticsData.getNetSavings(currentMonth);
-        double savingsRate = AnalyticsData.getSavingsRate(currentMonth);
+    private void loadMetrics(AnalyticsData.Snapshot snapshot) {
+        long totalIncome = snapshot.totalIncome;
+        long totalExpenses = snapshot.totalExpenses;
+        long netSavings = snapshot.netSavings;
+        double savingsRate = snapshot.savingsRate;
         
         // Total Income Card
         metricsPanel.add(createMetricCard("Total Income", totalIncome, new Color(0x7ed957)));
@@ -199,7 +233,7 @@ public class AnalyticsPanel extends JPanel implements UITheme.ThemeChangeListene
         metricsPanel.add(createSavingsRateCard("Savings Rate", savingsRate, rateColor));
     }
     
-    private JPanel createMetricCard(String label, double value, Color accentColor) {
+    private JPanel createMetricCard(String label, long value, Color accentColor) {
         JPanel card = new JPanel();
         card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
         card.setBackground(Color.WHITE);
@@ -214,7 +248,7 @@ public class AnalyticsPanel extends JPanel implements UITheme.ThemeChangeListene
         labelText.setForeground(Color.DARK_GRAY);
         labelText.setAlignmentX(Component.CENTER_ALIGNMENT);
         
-        JLabel valueText = new JLabel("₱" + String.format("%,.2f", value));
+        JLabel valueText = new JLabel("₱" + Money.format(value));
         valueText.setFont(new Font(UITheme.FONT_FAMILY, Font.BOLD, 22));
         valueText.setForeground(accentColor);
         valueText.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -257,9 +291,8 @@ public class AnalyticsPanel extends JPanel implements UITheme.ThemeChangeListene
         return card;
     }
     
-    private void loadTopCategories() {
-        List<AnalyticsData.CategorySpending> topCategories = 
-            AnalyticsData.getTopExpenseCategories(currentMonth, 3);
+    private void loadTopCategories(AnalyticsData.Snapshot snapshot) {
+        List<AnalyticsData.CategorySpending> topCategories = snapshot.topCategories;
         
         if (topCategories.isEmpty()) {
             return;
@@ -291,7 +324,7 @@ public class AnalyticsPanel extends JPanel implements UITheme.ThemeChangeListene
         topCategoriesPanel.add(cardsPanel);
     }
     
-    private JPanel createTopCategoryCard(int rank, String category, double amount, Color accentColor) {
+    private JPanel createTopCategoryCard(int rank, String category, long amount, Color accentColor) {
         JPanel card = new JPanel();
         card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
         card.setBackground(Color.WHITE);
@@ -311,7 +344,7 @@ public class AnalyticsPanel extends JPanel implements UITheme.ThemeChangeListene
         categoryLabel.setForeground(Color.DARK_GRAY);
         categoryLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         
-        JLabel amountLabel = new JLabel("₱" + String.format("%,.2f", amount));
+        JLabel amountLabel = new JLabel("₱" + Money.format(amount));
         amountLabel.setFont(new Font(UITheme.FONT_FAMILY, Font.BOLD, 18));
         amountLabel.setForeground(Color.BLACK);
         amountLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -373,6 +406,8 @@ public class AnalyticsPanel extends JPanel implements UITheme.ThemeChangeListene
     }
     
     public void cleanup() {
+        loader.cancel();
         UITheme.removeThemeChangeListener(this);
+        DataEvents.unsubscribe(this);
     }
 }
\ No newline at end of file
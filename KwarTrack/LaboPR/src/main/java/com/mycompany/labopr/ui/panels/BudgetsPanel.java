@@ -1,10 +1,15 @@
 package com.mycompany.labopr.ui.panels;
 
 import com.mycompany.labopr.data.BudgetData;
-import com.mycompany.labopr.data.TransactionData;
 import com.mycompany.labopr.ui.dialogs.BudgetGoalDialog;
 import com.mycompany.labopr.ui.factories.ButtonFactory;
+import com.mycompany.labopr.ui.factories.PanelFactory;
 import com.mycompany.labopr.ui.theme.UITheme;
+import com.mycompany.labopr.utils.DataChangeEvent;
+import com.mycompany.labopr.utils.DataChangeListener;
+import com.mycompany.labopr.utils.DataEvents;
+import com.mycompany.labopr.utils.Money;
+import com.mycompany.labopr.utils.PanelLoader;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
@@ -14,12 +19,15 @@ import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.List;
 
-public class BudgetsPanel extends JPanel implements UITheme.ThemeChangeListener {
+public class BudgetsPanel extends JPanel implements UITheme.ThemeChangeListener, DataChangeListener {
     private JFrame parentFrame;
     private JComboBox<String> monthSelector;
     private JTable budgetTable;
     private DefaultTableModel tableModel;
+    private JPanel tableHolder;
+    private CardLayout tableCards;
     private String currentMonth;
+    private PanelLoader<List<Object[]>> loader;
     
     public BudgetsPanel(JFrame parent) {
         this.parentFrame = parent;
@@ -32,7 +40,9 @@ public class BudgetsPanel extends JPanel implements UITheme.ThemeChangeListener
         UITheme.addThemeChangeListener(this);
         
         initComponents();
+        loader = new PanelLoader<>(this::showLoading, this::showBudgets, this::showLoadFailed);
         loadBudgets();
+        DataEvents.subscribe(this);
     }
     
     private void initComponents() {
@@ -144,7 +154,15 @@ public class BudgetsPanel extends JPanel implements UITheme.ThemeChangeListener
         JScrollPane scrollPane = new JScrollPane(budgetTable);
         scrollPane.setBackground(Color.WHITE);
         
-        add(scrollPane, BorderLayout.CENTER);
+        // Table and loading placeholder share the center
+        tableCards = new CardLayout();
+        tableHolder = new JPanel(tableCards);
+        tableHolder.setOpaque(false);
+        tableHolder.add(scrollPane, "table");
+        tableHolder.add(PanelFactory.createLoadingLabel("Loading budgets..."), "loading");
+        tableHolder.add(PanelFactory.createLoadingLabel("Couldn't load budgets."), "failed");
+        
+        add(tableHolder, BorderLayout.CENTER);
         
         // Bottom panel with action buttons
         JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 10));
@@ -186,29 +204,37 @@ public class BudgetsPanel extends JPanel implements UITheme.ThemeChangeListener
         return months.toArray(new String[0]);
     }
     
+    // Compute the month's budget rows in the background
     private void loadBudgets() {
+        String month = currentMonth;
+        loader.load(() -> buildBudgetRows(month));
+    }
+    
+    private void showLoading() {
+        tableCards.show(tableHolder, "loading");
+    }
+    
+    private void showLoadFailed() {
+        tableCards.show(tableHolder, "failed");
+    }
+    
+    private void showBudgets(List<Object[]> rows) {
         tableModel.setRowCount(0);
-        
-        // Get all relevant categories for this month
-        Set<String> categories = BudgetData.getAllRelevantCategories(currentMonth);
-        
-        // If no categories, show all expense categories
-        if (categories.isEmpty()) {
-            categories = TransactionData.getCategories("Expenses");
+        for (Object[] row : rows) {
+            tableModel.addRow(row);
         }
+        tableCards.show(tableHolder, "table");
+    }
+    
+    private List<Object[]> buildBudgetRows(String month) {
+        List<Object[]> rows = new ArrayList<>();
         
-        List<String> sortedCategories = new ArrayList<>(categories);
-        Collections.sort(sortedCategories);
-        
-        for (String category : sortedCategories) {
-            Double goalAmount = BudgetData.getBudgetGoal(category, currentMonth);
-            double goal = (goalAmount != null) ? goalAmount : 0.0;
-            double spent = BudgetData.getSpentForCategoryAndMonth(category, currentMonth);
-            double remaining = goal - spent;
+        for (BudgetData.CategoryReport line : BudgetData.monthReport(month)) {
+            long goal = line.goalCents;
+            long spent = line.spentCents;
             
-            BudgetData.BudgetStatus status = BudgetData.calculateStatus(goal, spent);
             String statusText;
-            switch (status) {
+            switch (line.status) {
                 case UNDER_BUDGET:
                     statusText = "Under Budget";
                     break;
@@ -227,52 +253,64 @@ public class BudgetsPanel extends JPanel implements UITheme.ThemeChangeListener
                 statusText = "-";
             }
             
-            tableModel.addRow(new Object[]{
-                category,
-                goal > 0 ? String.format("%.2f", goal) : "-",
-                spent > 0 ? String.format("%.2f", spent) : "0.00",
-                goal > 0 ? String.format("%.2f", remaining) : "-",
+            rows.add(new Object[]{
+                line.category,
+                goal > 0 ? Money.toPlainString(goal) : "-",
+                spent > 0 ? Money.toPlainString(spent) : "0.00",
+                goal > 0 ? Money.toPlainString(line.remainingCents) : "-",
                 statusText
             });
         }
+        return rows;
     }
     
     private void handleAddEditGoal() {
         BudgetGoalDialog dialog = new BudgetGoalDialog(parentFrame, currentMonth);
         dialog.setVisible(true);
-        
-        if (dialog.isConfirmed()) {
-            loadBudgets();
-        }
     }
     
     private void handleEditGoal(int row) {
         String category = (String) tableModel.getValueAt(row, 0);
         String goalStr = (String) tableModel.getValueAt(row, 1);
         
-        double currentGoal = 0.0;
+        long currentGoal = 0;
         if (!goalStr.equals("-")) {
             try {
-                currentGoal = Double.parseDouble(goalStr);
+                currentGoal = Money.parse(goalStr);
             } catch (NumberFormatException ignored) {
             }
         }
         
         BudgetGoalDialog dialog = new BudgetGoalDialog(parentFrame, currentMonth, category, currentGoal);
         dialog.setVisible(true);
-        
-        if (dialog.isConfirmed()) {
-            loadBudgets();
-        }
     }
     
     private void handleSetAllGoals() {
         BudgetGoalDialog dialog = new BudgetGoalDialog(parentFrame, currentMonth, true);
         dialog.setVisible(true);
-        
-        if (dialog.isConfirmed()) {
-            loadBudgets();
+    }
+    
+    // Saved goals and spending come back through here; only changes to the
+    // month on screen cause a reload
+    @Override
+    public void onDataChanged(List<DataChangeEvent> events) {
+        for (DataChangeEvent event : events) {
+            if (affectsCurrentMonth(event)) {
+                loadBudgets();
+                return;
+            }
+        }
+    }
+    
+    private boolean affectsCurrentMonth(DataChangeEvent event) {
+        if (event instanceof DataChangeEvent.TransactionAdded) {
+            DataChangeEvent.TransactionAdded added = (DataChangeEvent.TransactionAdded) event;
+            return added.type.equals("Expenses") && added.month.equals(currentMonth);
+        }
+        if (event instanceof DataChangeEvent.BudgetUpserted) {
+            return ((DataChangeEvent.BudgetUpserted) event).month.equals(currentMonth);
         }
+        return event instanceof DataChangeEvent.DataReset;
     }
     
     private void handleSaveGoals() {
@@ -314,6 +352,8 @@ public class BudgetsPanel extends JPanel implements UITheme.ThemeChangeListener
     }
     
     public void cleanup() {
+        loader.cancel();
         UITheme.removeThemeChangeListener(this);
+        DataEvents.unsubscribe(this);
     }
 }
\ No newline at end of file
@@ -9,12 +9,12 @@ import java.util.List;
 
 public class ChartPanel extends JPanel {
     private String chartType;
-    private Map<String, Double> pieData;
+    private Map<String, Long> pieData; // centavos
     private Map<String, AnalyticsData.MonthlyData> trendData;
     private String title;
     
     // Constructor for pie chart
-    public ChartPanel(String title, Map<String, Double> data) {
+    public ChartPanel(String title, Map<String, Long> data) {
         this.title = title;
         this.chartType = "pie";
         this.pieData = data;
@@ -70,7 +70,7 @@ public class ChartPanel extends JPanel {
         }
         
         // Calculate total
-        double total = pieData.values().stream().mapToDouble(Double::doubleValue).sum();
+        double total = pieData.values().stream().mapToLong(Long::longValue).sum();
         if (total == 0) {
             drawNoDataMessage(g2d);
             return;
@@ -92,9 +92,9 @@ public class ChartPanel extends JPanel {
         // Draw pie slices
         int startAngle = 0;
         int colorIndex = 0;
-        List<Map.Entry<String, Double>> entries = new ArrayList<>(pieData.entrySet());
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(pieData.entrySet());
         
-        for (Map.Entry<String, Double> entry : entries) {
+        for (Map.Entry<String, Long> entry : entries) {
             double percentage = (entry.getValue() / total) * 100;
             int arcAngle = (int) Math.round((entry.getValue() / total) * 360);
             
@@ -114,7 +114,7 @@ public class ChartPanel extends JPanel {
         int itemsPerRow = 2;
         int currentItem = 0;
         
-        for (Map.Entry<String, Double> entry : entries) {
+        for (Map.Entry<String, Long> entry : entries) {
             if (currentItem >= 6) break; // Show max 6 categories in legend
             
             int x = legendX + (currentItem % itemsPerRow) * (getWidth() / 2);
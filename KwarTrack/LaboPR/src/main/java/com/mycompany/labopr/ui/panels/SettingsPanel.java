@@ -2,12 +2,16 @@ package com.mycompany.labopr.ui.panels;
 
 import com.mycompany.labopr.views.GUI;
 import com.mycompany.labopr.data.SettingsData;
+import com.mycompany.labopr.data.TransactionData;
 import com.mycompany.labopr.ui.factories.ButtonFactory;
 import com.mycompany.labopr.ui.theme.UITheme;
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.io.File;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
 
 public class SettingsPanel extends JPanel implements UITheme.ThemeChangeListener {
     private JFrame parentFrame;
@@ -23,6 +27,24 @@ public class SettingsPanel extends JPanel implements UITheme.ThemeChangeListener
     private JRadioButton darkModeRadio;
     private JComboBox<String> accentColorCombo;
     
+    // Data management
+    private JComboBox<String> storageCombo;
+    private JComboBox<String> syncCombo;
+    private JButton resetBtn;
+    private JButton exportBtn;
+    private JButton importBtn;
+    
+    // Background import/export
+    private JPanel transferPanel;
+    private JProgressBar transferProgressBar;
+    private JLabel transferStatusLabel;
+    private JButton cancelTransferBtn;
+    private volatile boolean transferCancelled;
+    
+    // How often saved data is forced to disk, in milliseconds
+    private static final String[] SYNC_LABELS = {"Every write", "Every second", "Every 5 seconds"};
+    private static final long[] SYNC_INTERVALS = {0, 1000, 5000};
+    
     public SettingsPanel(JFrame parent) {
         this.parentFrame = parent;
         
@@ -166,28 +188,62 @@ public class SettingsPanel extends JPanel implements UITheme.ThemeChangeListener
     private JPanel createDataManagementSection() {
         JPanel section = createSectionPanel("Data Management");
         
+        // Transaction storage backend
+        String[] storageBackends = {SettingsData.STORAGE_TEXT, SettingsData.STORAGE_BINARY};
+        storageCombo = new JComboBox<>(storageBackends);
+        storageCombo.addActionListener(e -> handleStorageChange());
+        section.add(createFieldRow("Storage:", storageCombo));
+        
+        // How often appended data is synced to disk
+        syncCombo = new JComboBox<>(SYNC_LABELS);
+        syncCombo.addActionListener(e -> handleSyncChange());
+        section.add(createFieldRow("Sync to Disk:", syncCombo));
+        
         JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
         buttonsPanel.setOpaque(false);
         
         // Reset Data button
-        JButton resetBtn = ButtonFactory.createRoundedButton("Reset All Data");
+        resetBtn = ButtonFactory.createRoundedButton("Reset All Data");
         resetBtn.setPreferredSize(new Dimension(160, 40));
         resetBtn.addActionListener(e -> handleResetData());
         buttonsPanel.add(resetBtn);
         
         // Export Data button
-        JButton exportBtn = ButtonFactory.createRoundedButton("Export Data");
+        exportBtn = ButtonFactory.createRoundedButton("Export Data");
         exportBtn.setPreferredSize(new Dimension(160, 40));
         exportBtn.addActionListener(e -> handleExportData());
         buttonsPanel.add(exportBtn);
         
         // Import Data button
-        JButton importBtn = ButtonFactory.createRoundedButton("Import Data");
+        importBtn = ButtonFactory.createRoundedButton("Import Data");
         importBtn.setPreferredSize(new Dimension(160, 40));
         importBtn.addActionListener(e -> handleImportData());
         buttonsPanel.add(importBtn);
         
         section.add(buttonsPanel);
+        
+        // Progress of a running import/export, hidden while idle
+        transferPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        transferPanel.setOpaque(false);
+        transferPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        
+        transferProgressBar = new JProgressBar(0, 100);
+        transferProgressBar.setStringPainted(true);
+        transferProgressBar.setPreferredSize(new Dimension(300, 25));
+        transferPanel.add(transferProgressBar);
+        
+        cancelTransferBtn = ButtonFactory.createRoundedButton("Cancel");
+        cancelTransferBtn.setPreferredSize(new Dimension(100, 30));
+        cancelTransferBtn.addActionListener(e -> handleCancelTransfer());
+        transferPanel.add(cancelTransferBtn);
+        
+        transferStatusLabel = new JLabel(" ");
+        transferStatusLabel.setFont(new Font(UITheme.FONT_FAMILY, Font.PLAIN, 12));
+        transferStatusLabel.setForeground(new Color(0x333333));
+        transferPanel.add(transferStatusLabel);
+        
+        transferPanel.setVisible(false);
+        section.add(transferPanel);
         section.add(Box.createVerticalStrut(15));
         
         // Logout button
@@ -264,6 +320,15 @@ public class SettingsPanel extends JPanel implements UITheme.ThemeChangeListener
         }
         
         accentColorCombo.setSelectedItem(SettingsData.getSetting(SettingsData.ACCENT_COLOR));
+        
+        // Load data settings
+        storageCombo.setSelectedItem(SettingsData.getSetting(SettingsData.STORAGE_BACKEND));
+        syncCombo.setSelectedIndex(-1);
+        for (int i = 0; i < SYNC_INTERVALS.length; i++) {
+            if (String.valueOf(SYNC_INTERVALS[i]).equals(SettingsData.getSetting(SettingsData.SYNC_INTERVAL_MS))) {
+                syncCombo.setSelectedIndex(i);
+            }
+        }
     }
     
     private void handleSaveProfile() {
@@ -300,6 +365,35 @@ public class SettingsPanel extends JPanel implements UITheme.ThemeChangeListener
         );
     }
     
+    private void handleStorageChange() {
+        String backend = (String) storageCombo.getSelectedItem();
+        String current = SettingsData.getSetting(SettingsData.STORAGE_BACKEND);
+        if (backend.equals(current)) return;
+        
+        // Rewrites the whole history, so it runs like an import; it can't be cancelled
+        runTransfer("Converting", progress -> TransactionData.setStorageBackend(backend), rows -> {
+            JOptionPane.showMessageDialog(
+                parentFrame,
+                "Transactions are now stored in the " + backend + " format.",
+                "Storage Changed",
+                JOptionPane.INFORMATION_MESSAGE
+            );
+        }, rows -> storageCombo.setSelectedItem(current),
+            () -> storageCombo.setSelectedItem(current),
+            "Failed to convert transactions. Storage was not changed.");
+        cancelTransferBtn.setEnabled(false);
+    }
+    
+    private void handleSyncChange() {
+        int index = syncCombo.getSelectedIndex();
+        if (index < 0) return;
+        
+        String interval = String.valueOf(SYNC_INTERVALS[index]);
+        if (!interval.equals(SettingsData.getSetting(SettingsData.SYNC_INTERVAL_MS))) {
+            SettingsData.setSyncInterval(SYNC_INTERVALS[index]);
+        }
+    }
+    
     private void handleResetData() {
         int confirm = JOptionPane.showConfirmDialog(
             parentFrame,
@@ -337,32 +431,33 @@ public class SettingsPanel extends JPanel implements UITheme.ThemeChangeListener
     private void handleExportData() {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Export Data");
-        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV Files (*.csv)", "csv"));
+        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV Files (*.csv, *.csv.gz)", "csv", "gz"));
         fileChooser.setSelectedFile(new File("kwartrack_export.csv"));
         
         int result = fileChooser.showSaveDialog(parentFrame);
         if (result == JFileChooser.APPROVE_OPTION) {
             File file = fileChooser.getSelectedFile();
             String filepath = file.getAbsolutePath();
-            if (!filepath.endsWith(".csv")) {
+            if (!filepath.endsWith(".csv") && !filepath.endsWith(".csv.gz")) {
                 filepath += ".csv";
             }
             
-            if (SettingsData.exportData(filepath)) {
+            String exportPath = filepath;
+            runTransfer("Exporting", progress -> SettingsData.exportData(exportPath, progress), rows -> {
                 JOptionPane.showMessageDialog(
                     parentFrame,
-                    "Data exported successfully to:\n" + filepath,
+                    "Data exported successfully to:\n" + exportPath,
                     "Export Complete",
                     JOptionPane.INFORMATION_MESSAGE
                 );
-            } else {
+            }, rows -> {
                 JOptionPane.showMessageDialog(
                     parentFrame,
-                    "Failed to export data. Please try again.",
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE
+                    "Export cancelled. No file was written.",
+                    "Export Cancelled",
+                    JOptionPane.INFORMATION_MESSAGE
                 );
-            }
+            }, "Failed to export data. Please try again.");
         }
     }
     
@@ -380,29 +475,126 @@ public class SettingsPanel extends JPanel implements UITheme.ThemeChangeListener
         if (confirm == JOptionPane.YES_OPTION) {
             JFileChooser fileChooser = new JFileChooser();
             fileChooser.setDialogTitle("Import Data");
-            fileChooser.setFileFilter(new FileNameExtensionFilter("CSV Files (*.csv)", "csv"));
+            fileChooser.setFileFilter(new FileNameExtensionFilter("CSV Files (*.csv, *.csv.gz)", "csv", "gz"));
             
             int result = fileChooser.showOpenDialog(parentFrame);
             if (result == JFileChooser.APPROVE_OPTION) {
                 File file = fileChooser.getSelectedFile();
                 
-                if (SettingsData.importData(file.getAbsolutePath())) {
+                runTransfer("Importing", progress -> SettingsData.importData(file.getAbsolutePath(), progress), rows -> {
                     JOptionPane.showMessageDialog(
                         parentFrame,
-                        "Data imported successfully!\nPlease refresh panels to see the updated data.",
+                        "Data imported successfully!",
                         "Import Complete",
                         JOptionPane.INFORMATION_MESSAGE
                     );
+                }, rows -> {
+                    JOptionPane.showMessageDialog(
+                        parentFrame,
+                        "Import cancelled after reading " + String.format("%,d", rows) + " rows.\n" +
+                        "Only complete batches of transactions were saved.",
+                        "Import Cancelled",
+                        JOptionPane.INFORMATION_MESSAGE
+                    );
+                }, "Failed to import data. Please check the file format.");
+            }
+        }
+    }
+    
+    // Run an import, export or conversion on a background thread, showing rows per second
+    // and percent done in the data section until it finishes or is cancelled
+    private void runTransfer(String action, Predicate<SettingsData.TransferProgress> job,
+                             LongConsumer onSuccess, LongConsumer onCancel, String failureMessage) {
+        runTransfer(action, job, onSuccess, onCancel, () -> {}, failureMessage);
+    }
+    
+    private void runTransfer(String action, Predicate<SettingsData.TransferProgress> job,
+                             LongConsumer onSuccess, LongConsumer onCancel, Runnable onFailure,
+                             String failureMessage) {
+        transferCancelled = false;
+        setTransferRunning(true);
+        transferProgressBar.setIndeterminate(true);
+        transferStatusLabel.setText(action + "...");
+        long startTime = System.nanoTime();
+        
+        SwingWorker<Boolean, long[]> worker = new SwingWorker<Boolean, long[]>() {
+            private volatile long rowsDone = 0;
+            
+            @Override
+            protected Boolean doInBackground() {
+                return job.test(new SettingsData.TransferProgress() {
+                    @Override
+                    public void progress(long rows, long done, long total) {
+                        rowsDone = rows;
+                        publish(new long[] {rows, done, total});
+                    }
+                    
+                    @Override
+                    public boolean isCancelled() {
+                        return transferCancelled;
+                    }
+                });
+            }
+            
+            @Override
+            protected void process(List<long[]> updates) {
+                long[] latest = updates.get(updates.size() - 1);
+                long rows = latest[0];
+                double seconds = Math.max((System.nanoTime() - startTime) / 1e9, 0.001);
+                
+                if (latest[2] > 0) {
+                    transferProgressBar.setIndeterminate(false);
+                    transferProgressBar.setValue((int) (latest[1] * 100 / latest[2]));
+                }
+                transferStatusLabel.setText(String.format("%s: %,d rows (%,d rows/s)",
+                    action, rows, (long) (rows / seconds)));
+            }
+            
+            @Override
+            protected void done() {
+                setTransferRunning(false);
+                boolean success;
+                try {
+                    success = get();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    success = false;
+                }
+                
+                if (success) {
+                    onSuccess.accept(rowsDone);
+                } else if (transferCancelled) {
+                    onCancel.accept(rowsDone);
                 } else {
+                    onFailure.run();
                     JOptionPane.showMessageDialog(
                         parentFrame,
-                        "Failed to import data. Please check the file format.",
+                        failureMessage,
                         "Error",
                         JOptionPane.ERROR_MESSAGE
                     );
                 }
             }
-        }
+        };
+        worker.execute();
+    }
+    
+    private void handleCancelTransfer() {
+        transferCancelled = true;
+        cancelTransferBtn.setEnabled(false);
+        transferStatusLabel.setText("Cancelling...");
+    }
+    
+    private void setTransferRunning(boolean running) {
+        transferPanel.setVisible(running);
+        cancelTransferBtn.setEnabled(running);
+        resetBtn.setEnabled(!running);
+        exportBtn.setEnabled(!running);
+        importBtn.setEnabled(!running);
+        storageCombo.setEnabled(!running);
+        transferProgressBar.setValue(0);
+        revalidate();
+        repaint();
     }
     
     private void handleLogout() {
@@ -0,0 +1,60 @@
+package com.mycompany.labopr.ui.panels;
+
+import com.mycompany.labopr.data.TransactionRows;
+import com.mycompany.labopr.utils.Money;
+import javax.swing.table.AbstractTableModel;
+
+// Table model that wraps the transaction store directly. Only the row count
+// is known up front; JTable asks for the cells of visible rows, and those are
+// read and formatted on demand.
+class TransactionTableModel extends AbstractTableModel {
+    private static final String[] COLUMN_NAMES = {"Date", "Category", "Amount", "Comment"};
+
+    private TransactionRows rows;
+
+    // Show a new set of rows
+    void setRows(TransactionRows rows) {
+        this.rows = rows;
+        fireTableDataChanged();
+    }
+
+    // Show rows saved since the current rows were set; false if they are
+    // stale and have to be fetched again
+    boolean appendNewRows() {
+        if (rows == null) return false;
+        int first = rows.size();
+        int added = rows.refresh();
+        if (added < 0) return false;
+        if (added > 0) fireTableRowsInserted(first, first + added - 1);
+        return true;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows == null ? 0 : rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case 0:
+                return rows.getDate(row);
+            case 1:
+                return rows.getCategory(row);
+            case 2:
+                return "₱" + Money.format(rows.getAmountCents(row));
+            default:
+                return rows.getComment(row);
+        }
+    }
+}
@@ -2,25 +2,47 @@ package com.mycompany.labopr.ui.panels;
 
 import com.mycompany.labopr.ui.factories.ButtonFactory;
 import com.mycompany.labopr.data.TransactionData;
+import com.mycompany.labopr.data.TransactionRows;
 import com.mycompany.labopr.ui.dialogs.TransactionDialog;
+import com.mycompany.labopr.ui.factories.PanelFactory;
 import com.mycompany.labopr.ui.theme.UITheme;
+import com.mycompany.labopr.utils.DataChangeEvent;
+import com.mycompany.labopr.utils.DataChangeListener;
+import com.mycompany.labopr.utils.DataEvents;
+import com.mycompany.labopr.utils.Money;
+import com.mycompany.labopr.utils.PanelLoader;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
 import java.text.NumberFormat;
 import java.util.List;
 import java.util.Locale;
 
-public class TransactionsPanel extends JPanel implements UITheme.ThemeChangeListener {
+public class TransactionsPanel extends JPanel implements UITheme.ThemeChangeListener, DataChangeListener {
     private JFrame parentFrame;
     private JLabel balanceLabel;
     private JButton expensesBtn;
     private JButton incomeBtn;
     private JTable transactionTable;
-    private DefaultTableModel tableModel;
+    private TransactionTableModel tableModel;
+    private JPanel tableHolder;
+    private CardLayout tableCards;
     private String currentType = "Expenses";
     private NumberFormat currencyFormat;
+    private PanelLoader<LoadedTransactions> loader;
+    private PanelLoader<Long> balanceLoader;
+    private long balance;
+    
+    // Row view and balance fetched off the EDT
+    private static class LoadedTransactions {
+        final TransactionRows rows;
+        final long balance;
+        
+        LoadedTransactions(TransactionRows rows, long balance) {
+            this.rows = rows;
+            this.balance = balance;
+        }
+    }
     
     public TransactionsPanel(JFrame parent) {
         this.parentFrame = parent;
@@ -36,11 +58,14 @@ public class TransactionsPanel extends JPanel implements UITheme.ThemeChangeList
         checkAndSetBalance();
         
         initComponents();
+        loader = new PanelLoader<>(this::showLoading, this::showTransactions, this::showLoadFailed);
+        balanceLoader = new PanelLoader<>(() -> {}, this::showBalance, () -> {});
         loadTransactions();
+        DataEvents.subscribe(this);
     }
     
     private void checkAndSetBalance() {
-        Double balance = TransactionData.getBalance();
+        Long balance = TransactionData.getBalance();
         if (balance == null) {
             String input = JOptionPane.showInputDialog(
                 parentFrame,
@@ -51,7 +76,7 @@ public class TransactionsPanel extends JPanel implements UITheme.ThemeChangeList
             
             if (input != null && !input.trim().isEmpty()) {
                 try {
-                    double startBalance = Double.parseDouble(input.trim());
+                    long startBalance = Money.parse(input.trim());
                     if (startBalance >= 0) {
                         TransactionData.setBalance(startBalance);
                     } else {
@@ -83,9 +108,8 @@ public class TransactionsPanel extends JPanel implements UITheme.ThemeChangeList
         JPanel topPanel = new JPanel(new BorderLayout(10, 10));
         topPanel.setOpaque(false);
         
-        // Balance label
-        double currentBalance = TransactionData.calculateCurrentBalance();
-        balanceLabel = new JLabel("Total Balance: ₱" + String.format("%,.2f", currentBalance));
+        // Balance label, filled in once the transactions have loaded
+        balanceLabel = new JLabel("Total Balance: ...");
         balanceLabel.setFont(new Font(UITheme.FONT_FAMILY, Font.BOLD, 28));
         balanceLabel.setForeground(UITheme.TEXT_COLOR);
         balanceLabel.setHorizontalAlignment(SwingConstants.CENTER);
@@ -110,13 +134,7 @@ public class TransactionsPanel extends JPanel implements UITheme.ThemeChangeList
         add(topPanel, BorderLayout.NORTH);
         
         // Center panel with table
-        String[] columnNames = {"Date", "Category", "Amount", "Comment"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new TransactionTableModel();
         
         transactionTable = new JTable(tableModel);
         transactionTable.setFont(new Font(UITheme.FONT_FAMILY, Font.PLAIN, 14));
@@ -133,7 +151,15 @@ public class TransactionsPanel extends JPanel implements UITheme.ThemeChangeList
         JScrollPane scrollPane = new JScrollPane(transactionTable);
         scrollPane.setBackground(Color.WHITE);
         
-        add(scrollPane, BorderLayout.CENTER);
+        // Table and loading placeholder share the center
+        tableCards = new CardLayout();
+        tableHolder = new JPanel(tableCards);
+        tableHolder.setOpaque(false);
+        tableHolder.add(scrollPane, "table");
+        tableHolder.add(PanelFactory.createLoadingLabel("Loading transactions..."), "loading");
+        tableHolder.add(PanelFactory.createLoadingLabel("Couldn't load transactions."), "failed");
+        
+        add(tableHolder, BorderLayout.CENTER);
         
         // Bottom panel with Add button
         JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -182,32 +208,71 @@ public class TransactionsPanel extends JPanel implements UITheme.ThemeChangeList
         loadTransactions();
     }
     
+    // Fetch the current type's rows in the background; the first access may load the file
     private void loadTransactions() {
-        tableModel.setRowCount(0);
-        
-        List<TransactionData.Transaction> transactions = 
-            TransactionData.getTransactionsByType(currentType);
-        
-        for (TransactionData.Transaction t : transactions) {
-            tableModel.addRow(new Object[]{
-                t.date,
-                t.category,
-                "₱" + String.format("%,.2f", t.amount),
-                t.comment
-            });
-        }
+        String type = currentType;
+        balanceLoader.cancel(); // the full load brings its own balance
+        loader.load(() -> new LoadedTransactions(
+            TransactionData.getTransactionRows(type),
+            TransactionData.calculateCurrentBalance()
+        ));
+    }
+    
+    private void showLoading() {
+        tableCards.show(tableHolder, "loading");
+    }
+    
+    private void showLoadFailed() {
+        tableCards.show(tableHolder, "failed");
+    }
+    
+    private void showTransactions(LoadedTransactions loaded) {
+        tableModel.setRows(loaded.rows);
         
         // Update balance
-        double currentBalance = TransactionData.calculateCurrentBalance();
-        balanceLabel.setText("Total Balance: ₱" + String.format("%,.2f", currentBalance));
+        balance = loaded.balance;
+        updateBalanceLabel();
+        tableCards.show(tableHolder, "table");
+    }
+    
+    private void showBalance(long balance) {
+        this.balance = balance;
+        updateBalanceLabel();
+    }
+    
+    private void updateBalanceLabel() {
+        balanceLabel.setText("Total Balance: ₱" + Money.format(balance));
     }
     
     private void handleAddTransaction() {
+        // The saved transaction comes back through onDataChanged
         TransactionDialog dialog = new TransactionDialog(parentFrame, currentType);
         dialog.setVisible(true);
+    }
+    
+    // Show just the new rows and re-read the balance, unless a load is still
+    // in flight or the change needs everything fetched again. The balance is
+    // read rather than moved by the events' amounts: events held back during
+    // an import can describe rows that a load in between already counted.
+    @Override
+    public void onDataChanged(List<DataChangeEvent> events) {
+        boolean reload = loader.isLoading();
+        boolean added = false;
+        for (DataChangeEvent event : events) {
+            if (event instanceof DataChangeEvent.TransactionAdded) {
+                added = true;
+            } else if (event instanceof DataChangeEvent.BalanceChanged
+                    || event instanceof DataChangeEvent.DataReset) {
+                reload = true;
+            }
+        }
         
-        if (dialog.isConfirmed()) {
+        if (reload || !tableModel.appendNewRows()) {
             loadTransactions();
+            return;
+        }
+        if (added) {
+            balanceLoader.load(TransactionData::calculateCurrentBalance);
         }
     }
     
@@ -224,6 +289,9 @@ public class TransactionsPanel extends JPanel implements UITheme.ThemeChangeList
     }
     
     public void cleanup() {
+        loader.cancel();
+        balanceLoader.cancel();
         UITheme.removeThemeChangeListener(this);
+        DataEvents.unsubscribe(this);
     }
 }
\ No newline at end of file
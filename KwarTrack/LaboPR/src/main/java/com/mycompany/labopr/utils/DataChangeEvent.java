@@ -0,0 +1,65 @@
+package com.mycompany.labopr.utils;
+
+// Something that changed in the saved data, published by the data layer
+// through DataEvents. Months are YYYY-MM strings and amounts are centavos.
+public abstract class DataChangeEvent {
+
+    private DataChangeEvent() {
+    }
+
+    // Transactions of one type, month and category were saved. A save of
+    // several transactions publishes one event per group, not per row.
+    public static final class TransactionAdded extends DataChangeEvent {
+        public final String type;
+        public final String month;
+        public final String category;
+        public final int count;
+        public final long amountCents;
+
+        public TransactionAdded(String type, String month, String category, int count, long amountCents) {
+            this.type = type;
+            this.month = month;
+            this.category = category;
+            this.count = count;
+            this.amountCents = amountCents;
+        }
+    }
+
+    // A budget goal was created or replaced
+    public static final class BudgetUpserted extends DataChangeEvent {
+        public final String month;
+        public final String category;
+        public final long goalCents;
+
+        public BudgetUpserted(String month, String category, long goalCents) {
+            this.month = month;
+            this.category = category;
+            this.goalCents = goalCents;
+        }
+    }
+
+    // The starting balance was set
+    public static final class BalanceChanged extends DataChangeEvent {
+        public final long startBalanceCents;
+
+        public BalanceChanged(long startBalanceCents) {
+            this.startBalanceCents = startBalanceCents;
+        }
+    }
+
+    // Every transaction, budget and the balance were deleted, or the cached
+    // transactions were dropped after a failed save; anything shown is stale
+    public static final class DataReset extends DataChangeEvent {
+    }
+
+    // An import finished or was cancelled; counts are what was actually saved
+    public static final class ImportCompleted extends DataChangeEvent {
+        public final long transactions;
+        public final int budgets;
+
+        public ImportCompleted(long transactions, int budgets) {
+            this.transactions = transactions;
+            this.budgets = budgets;
+        }
+    }
+}
@@ -4,10 +4,14 @@
  */
 package com.mycompany.labopr.utils;
 
+import java.util.List;
+
 /**
  *
  * @author dan
  */
-public class DataChangeListener {
-    
+// Receives changes to the saved data on the Event Dispatch Thread.
+// Events published close together arrive as one batch, oldest first.
+public interface DataChangeListener {
+    void onDataChanged(List<DataChangeEvent> events);
 }
@@ -0,0 +1,90 @@
+package com.mycompany.labopr.utils;
+
+import javax.swing.SwingUtilities;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Process-wide channel from the data layer to the panels. publish() can be
+// called from any thread; events are queued and handed to every subscriber
+// on the EDT as one batch per burst, so a burst of saves costs each panel a
+// single refresh. A long operation such as an import can hold back the
+// events its own thread publishes until it's done, and the panels then see
+// all of them at once; events from other threads keep being delivered.
+public class DataEvents {
+    private static final List<DataChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private static final List<DataChangeEvent> queued = new ArrayList<>();
+    private static boolean flushScheduled = false;
+
+    // Events held back by the current thread, with how many holds are open
+    private static final ThreadLocal<Held> held = new ThreadLocal<>();
+
+    private static class Held {
+        int depth = 0;
+        final List<DataChangeEvent> events = new ArrayList<>();
+    }
+
+    private DataEvents() {
+    }
+
+    // Register a listener for data changes
+    public static void subscribe(DataChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    // Remove a listener
+    public static void unsubscribe(DataChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Queue an event for the next delivery, or keep it back if this thread holds
+    public static void publish(DataChangeEvent event) {
+        Held mine = held.get();
+        if (mine != null) {
+            mine.events.add(event);
+            return;
+        }
+        synchronized (DataEvents.class) {
+            queued.add(event);
+            scheduleFlush();
+        }
+    }
+
+    // Keep the events this thread publishes back until the matching release()
+    public static void hold() {
+        Held mine = held.get();
+        if (mine == null) {
+            mine = new Held();
+            held.set(mine);
+        }
+        mine.depth++;
+    }
+
+    public static void release() {
+        Held mine = held.get();
+        if (mine == null || --mine.depth > 0) return;
+        held.remove();
+        synchronized (DataEvents.class) {
+            queued.addAll(mine.events);
+            scheduleFlush();
+        }
+    }
+
+    private static void scheduleFlush() {
+        if (flushScheduled || queued.isEmpty()) return;
+        flushScheduled = true;
+        SwingUtilities.invokeLater(DataEvents::flush);
+    }
+
+    private static void flush() {
+        List<DataChangeEvent> batch;
+        synchronized (DataEvents.class) {
+            flushScheduled = false;
+            if (queued.isEmpty()) return;
+            batch = Collections.unmodifiableList(new ArrayList<>(queued));
+            queued.clear();
+        }
+        for (DataChangeListener listener : listeners) {
+            listener.onDataChanged(batch);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.mycompany.labopr.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Fixed-point money helpers. Amounts are held as long centavos (1/100 of a peso)
+// and only turned into text at the file and UI boundaries.
+public class Money {
+    private static final int MAX_PLAIN_DIGITS = 16;
+
+    private Money() {
+    }
+
+    // Parse a decimal amount such as "1500", "35.0" or "-12.345" into centavos (half-up)
+    public static long parse(String text) {
+        return parse(text, 0, text.length());
+    }
+
+    // Parse the decimal amount in text[start, end) into centavos (half-up)
+    public static long parse(CharSequence text, int start, int end) {
+        // Trim surrounding spaces
+        while (start < end && text.charAt(start) == ' ') start++;
+        while (end > start && text.charAt(end - 1) == ' ') end--;
+        if (start == end) {
+            throw new NumberFormatException("Empty amount");
+        }
+
+        int i = start;
+        boolean negative = false;
+        char first = text.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        long units = 0;
+        int digits = 0;
+        int fraction = -1; // number of fraction digits seen, -1 before the point
+        int roundDigit = 0;
+
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (fraction < 0) {
+                    units = units * 10 + (c - '0');
+                    if (++digits > MAX_PLAIN_DIGITS) {
+                        return parseSlow(text, start, end);
+                    }
+                } else if (fraction < 2) {
+                    units = units * 10 + (c - '0');
+                    fraction++;
+                } else if (fraction == 2) {
+                    roundDigit = c - '0';
+                    fraction++;
+                }
+            } else if (c == '.' && fraction < 0) {
+                fraction = 0;
+            } else if (c == 'e' || c == 'E') {
+                // Legacy files may hold Double.toString output such as "1.2345678E7"
+                return parseSlow(text, start, end);
+            } else {
+                throw new NumberFormatException("Invalid amount: " + text.subSequence(start, end));
+            }
+        }
+
+        if (digits == 0 && fraction <= 0) {
+            throw new NumberFormatException("Invalid amount: " + text.subSequence(start, end));
+        }
+
+        // Scale to exactly two fraction digits
+        if (fraction < 1) units *= 100;
+        else if (fraction == 1) units *= 10;
+        if (roundDigit >= 5) units++;
+
+        return negative ? -units : units;
+    }
+
+    private static long parseSlow(CharSequence text, int start, int end) {
+        BigDecimal value = new BigDecimal(text.subSequence(start, end).toString());
+        // Check the size before setScale, which would expand an exponent such
+        // as 1e9999999 into millions of digits
+        int integerDigits = value.precision() - value.scale();
+        if (integerDigits > 19) {
+            throw new NumberFormatException("Amount out of range: " + text.subSequence(start, end));
+        }
+        if (integerDigits < -2) {
+            return 0; // smaller than 0.001, which rounds to zero centavos
+        }
+        try {
+            return value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + value);
+        }
+    }
+
+    // Plain two-decimal text, e.g. 123450 -> "1234.50"
+    public static String toPlainString(long cents) {
+        return appendPlain(new StringBuilder(24), cents).toString();
+    }
+
+    // Append plain two-decimal text without allocating intermediate strings
+    public static StringBuilder appendPlain(StringBuilder sb, long cents) {
+        if (cents < 0) {
+            sb.append('-');
+            cents = -cents;
+        }
+        long units = cents / 100;
+        int fraction = (int) (cents % 100);
+        sb.append(units).append('.');
+        if (fraction < 10) sb.append('0');
+        return sb.append(fraction);
+    }
+
+    // Grouped two-decimal text for display, e.g. 123450 -> "1,234.50"
+    public static String format(long cents) {
+        StringBuilder sb = new StringBuilder(32);
+        if (cents < 0) {
+            sb.append('-');
+            cents = -cents;
+        }
+        String units = Long.toString(cents / 100);
+        int firstGroup = units.length() % 3 == 0 ? 3 : units.length() % 3;
+        sb.append(units, 0, firstGroup);
+        for (int i = firstGroup; i < units.length(); i += 3) {
+            sb.append(',').append(units, i, i + 3);
+        }
+        int fraction = (int) (cents % 100);
+        sb.append('.');
+        if (fraction < 10) sb.append('0');
+        return sb.append(fraction).toString();
+    }
+
+    // Convert to a double for ratios and chart geometry only
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+}
@@ -0,0 +1,95 @@
+package com.mycompany.labopr.utils;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Runs a panel's data loading on a shared worker pool and applies the result
+// on the Event Dispatch Thread. Each loader only cares about its latest
+// request: starting a new load cancels the previous one, and a result that
+// arrives after it was superseded is dropped. If a load takes longer than a
+// moment the panel is asked to show its loading placeholder, and if it
+// fails the panel is asked to show that instead.
+// load() and cancel() must be called on the EDT.
+public class PanelLoader<T> {
+    private static final int LOADING_DELAY_MS = 150;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService workers = Executors.newFixedThreadPool(
+        Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())),
+        runnable -> {
+            Thread thread = new Thread(runnable, "panel-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    );
+
+    private final Runnable showLoading;
+    private final Consumer<T> apply;
+    private final Runnable showFailed;
+    private final Timer loadingTimer;
+    private Future<?> pending;
+    private int request = 0;
+
+    public PanelLoader(Runnable showLoading, Consumer<T> apply, Runnable showFailed) {
+        this.showLoading = showLoading;
+        this.apply = apply;
+        this.showFailed = showFailed;
+        this.loadingTimer = new Timer(LOADING_DELAY_MS, e -> showLoading.run());
+        this.loadingTimer.setRepeats(false);
+    }
+
+    // Compute a new result in the background, replacing any load still in flight
+    public void load(Supplier<T> task) {
+        cancelPending();
+        int current = ++request;
+        loadingTimer.restart();
+
+        pending = workers.submit(() -> {
+            T result;
+            try {
+                result = task.get();
+            } catch (Throwable e) {
+                // Errors too: the Future would otherwise swallow an OutOfMemoryError
+                e.printStackTrace();
+                SwingUtilities.invokeLater(() -> {
+                    if (current != request) return;
+                    loadingTimer.stop();
+                    pending = null;
+                    showFailed.run();
+                });
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (current != request) return; // superseded by a newer load
+                loadingTimer.stop();
+                pending = null;
+                apply.accept(result);
+            });
+        });
+    }
+
+    // True while a load has been started and has neither been applied nor failed
+    public boolean isLoading() {
+        return pending != null;
+    }
+
+    // Drop the load in flight, e.g. when the panel is being disposed
+    public void cancel() {
+        cancelPending();
+        request++;
+    }
+
+    private void cancelPending() {
+        loadingTimer.stop();
+        if (pending != null) {
+            // Not interrupting: reads may be on interruptible file channels.
+            // A queued load never starts and a running one has its result ignored.
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+}